@@ -0,0 +1,109 @@
+package com.rackleet.authserver.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Token hashing, hex and base64url encoding and the PKCE S256 check:
+ * HashUtils against the per-call MessageDigest lookup and String.format
+ * hex it replaced, and against the plain JDK encoders. Add -prof gc to
+ * see bytes/op next to ns/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashUtilsBenchmark {
+
+    private String token;
+    private String codeVerifier;
+    private byte[] hash;
+
+    @Setup
+    public void setUp() {
+        token = HashUtils.generateRandomToken();
+        codeVerifier = HashUtils.generateRandomToken();
+        hash = HashUtils.sha256(token);
+    }
+
+    // ── Token hash as hex ───────────────────────────────────────
+
+    @Benchmark
+    public String sha256HexBaseline() throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    @Benchmark
+    public String sha256HexJdk() throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
+    }
+
+    @Benchmark
+    public String sha256Hex() {
+        return HashUtils.toHex(HashUtils.sha256(token));
+    }
+
+    // What is stored now - the raw bytes, no text at all
+    @Benchmark
+    public byte[] sha256() {
+        return HashUtils.sha256(token);
+    }
+
+    // ── Encoding alone ──────────────────────────────────────────
+
+    @Benchmark
+    public String toHexJdk() {
+        return HexFormat.of().formatHex(hash);
+    }
+
+    @Benchmark
+    public String toHex() {
+        return HashUtils.toHex(hash);
+    }
+
+    @Benchmark
+    public String base64UrlJdk() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    @Benchmark
+    public String base64Url() {
+        return HashUtils.base64Url(hash);
+    }
+
+    // ── PKCE S256 ───────────────────────────────────────────────
+
+    @Benchmark
+    public String s256ChallengeBaseline() throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(codeVerifier.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    @Benchmark
+    public String s256Challenge() {
+        return HashUtils.s256Challenge(codeVerifier);
+    }
+}
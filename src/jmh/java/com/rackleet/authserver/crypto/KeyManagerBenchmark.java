@@ -0,0 +1,155 @@
+package com.rackleet.authserver.crypto;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Signer;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * Access-token signing and verification: KeyManager's cached signer and
+ * verifier per kid against building them from the JWK on every call, the
+ * way TokenService used to. Reported as signs and verifies per second,
+ * for each algorithm a client can choose - run with -p algorithmName=ES256
+ * to pick one.
+ *
+ * The per-call side uses its own key of the same type and size, since
+ * KeyManager never hands out private keys.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyManagerBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private String algorithmName;
+
+    private JWSAlgorithm algorithm;
+    private KeyManager keyManager;
+    private JWK signingKey;
+    private JWTClaimsSet claims;
+    private String token;
+    private String perCallToken;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        keyManager = new KeyManager(new InMemorySigningKeyStore());
+        keyManager.init();
+        algorithm = JWSAlgorithm.parse(algorithmName);
+        signingKey = generateKey(algorithm);
+
+        // Shaped like TokenService's access tokens
+        Instant now = Instant.now();
+        claims = new JWTClaimsSet.Builder()
+                .issuer("http://localhost:8080")
+                .subject("42")
+                .audience("http://localhost:8080")
+                .jwtID(HashUtils.generateRandomToken())
+                .issueTime(Date.from(now))
+                .notBeforeTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(3600)))
+                .claim("client_id", "benchmark-client")
+                .claim("scope", "openid profile email")
+                .build();
+        token = keyManager.sign(claims, algorithm).serialize();
+        perCallToken = signPerCall();
+    }
+
+    // ── Signing ─────────────────────────────────────────────────
+
+    @Benchmark
+    public String signCached() throws JOSEException {
+        return keyManager.sign(claims, algorithm).serialize();
+    }
+
+    @Benchmark
+    public String signPerCall() throws JOSEException {
+        SignedJWT jwt = new SignedJWT(header(), claims);
+        jwt.sign(newSigner(signingKey));
+        return jwt.serialize();
+    }
+
+    // ── Verification ────────────────────────────────────────────
+
+    @Benchmark
+    public boolean verifyCached() throws JOSEException, ParseException {
+        return keyManager.verify(SignedJWT.parse(token));
+    }
+
+    @Benchmark
+    public boolean verifyPerCall() throws JOSEException, ParseException {
+        SignedJWT jwt = SignedJWT.parse(perCallToken);
+        return jwt.verify(newVerifier(signingKey.toPublicJWK()));
+    }
+
+    private JWSHeader header() {
+        return new JWSHeader.Builder(algorithm)
+                .keyID(signingKey.getKeyID())
+                .type(JOSEObjectType.JWT)
+                .build();
+    }
+
+    private static JWK generateKey(JWSAlgorithm algorithm) throws JOSEException {
+        if (JWSAlgorithm.RS256.equals(algorithm)) {
+            return new RSAKeyGenerator(2048).keyID("benchmark").generate();
+        } else if (JWSAlgorithm.ES256.equals(algorithm)) {
+            return new ECKeyGenerator(Curve.P_256).keyID("benchmark").generate();
+        }
+        return new OctetKeyPairGenerator(Curve.Ed25519).keyID("benchmark").generate();
+    }
+
+    private static JWSSigner newSigner(JWK key) throws JOSEException {
+        if (key instanceof RSAKey rsaKey) {
+            return new RSASSASigner(rsaKey);
+        } else if (key instanceof ECKey ecKey) {
+            return new ECDSASigner(ecKey);
+        }
+        return new Ed25519Signer((OctetKeyPair) key);
+    }
+
+    private static JWSVerifier newVerifier(JWK publicKey) throws JOSEException {
+        if (publicKey instanceof RSAKey rsaKey) {
+            return new RSASSAVerifier(rsaKey);
+        } else if (publicKey instanceof ECKey ecKey) {
+            return new ECDSAVerifier(ecKey);
+        }
+        return new Ed25519Verifier((OctetKeyPair) publicKey);
+    }
+}
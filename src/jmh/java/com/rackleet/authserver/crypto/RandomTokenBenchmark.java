@@ -0,0 +1,68 @@
+package com.rackleet.authserver.crypto;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Random tokens and JTIs drawn from many threads at once: per-thread
+ * DRBGs in HashUtils against the shared SecureRandom, the JDK's shared
+ * UUID generator and the new SecureRandom per client secret they
+ * replaced. Throughput is summed over all threads, so scaling shows up
+ * by re-running with -t 1, -t 2, -t 8 and so on (or -t max).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RandomTokenBenchmark {
+
+    private static final SecureRandom SHARED = new SecureRandom();
+
+    // ── Codes and refresh tokens ────────────────────────────────
+
+    @Benchmark
+    public String tokenShared() {
+        byte[] bytes = new byte[32];
+        SHARED.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Benchmark
+    public String tokenPerThread() {
+        return HashUtils.generateRandomToken();
+    }
+
+    // ── Client secrets ──────────────────────────────────────────
+
+    @Benchmark
+    public String secretNewInstance() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // ── JTIs ────────────────────────────────────────────────────
+
+    @Benchmark
+    public UUID uuidShared() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID uuidPerThread() {
+        return HashUtils.randomUuid();
+    }
+}
@@ -0,0 +1,236 @@
+package com.rackleet.authserver.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rackleet.authserver.crypto.HashUtils;
+
+/**
+ * Refresh token rotation under contention, against a real Postgres: the
+ * SELECT-then-UPDATE TokenService used to do against the single
+ * compare-and-set UPDATE in RefreshTokenFamilyRepository. Every thread
+ * presents the current token of a random family - with families=1 they
+ * all fight over one row, as a client retrying in parallel would.
+ *
+ * Besides attempts per second, "rotated" and "rejected" count outcomes,
+ * and "duplicate" counts old-path rotations of a token some other thread
+ * had already rotated - the race the compare-and-set closes. A rejected
+ * client picks up its family's current token again, like a retry would,
+ * so a lost family does not turn the rest of the run into misses.
+ *
+ * Needs the schema migrated (start the app once); connects with
+ * SPRING_DATASOURCE_URL/USERNAME/PASSWORD, defaulting to application.yml.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RefreshTokenRotationBenchmark {
+
+    private static final String CLIENT_ID = "rotation-benchmark";
+
+    private static final String SELECT = "SELECT id, is_revoked, expires_at "
+            + "FROM refresh_token_families WHERE token_hash = ?";
+    private static final String UPDATE = "UPDATE refresh_token_families "
+            + "SET previous_token_hash = token_hash, token_hash = ?, expires_at = ? WHERE id = ? "
+            + "RETURNING previous_token_hash";
+    private static final String ROTATE = "UPDATE refresh_token_families "
+            + "SET previous_token_hash = token_hash, token_hash = ?, expires_at = ? "
+            + "WHERE token_hash = ? AND client_id = ? AND is_revoked = false AND expires_at > ? "
+            + "RETURNING *";
+    private static final String RELOAD = "SELECT token_hash FROM refresh_token_families WHERE id = ?";
+
+    @Param({"1", "1000"})
+    private int families;
+
+    // Each family's current token hash, as the winning client holds it
+    private AtomicReferenceArray<byte[]> current;
+    private long[] ids;
+
+    @Setup
+    public void setUp() throws SQLException {
+        current = new AtomicReferenceArray<>(families);
+        ids = new long[families];
+        try (Connection connection = connect();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO refresh_token_families (token_hash, client_id, user_id, scope, expires_at) "
+                             + "VALUES (?, ?, 1, 'openid profile', ?) RETURNING id")) {
+            deleteFamilies(connection);
+            for (int i = 0; i < families; i++) {
+                byte[] hash = newTokenHash();
+                insert.setBytes(1, hash);
+                insert.setString(2, CLIENT_ID);
+                insert.setTimestamp(3, Timestamp.from(Instant.now().plus(30, ChronoUnit.DAYS)));
+                try (ResultSet row = insert.executeQuery()) {
+                    row.next();
+                    ids[i] = row.getLong(1);
+                }
+                current.set(i, hash);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Connection connection = connect()) {
+            deleteFamilies(connection);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Client {
+
+        public long rotated;
+        public long rejected;
+        public long duplicate;
+
+        private Connection connection;
+        private PreparedStatement select;
+        private PreparedStatement update;
+        private PreparedStatement rotate;
+        private PreparedStatement reload;
+
+        @Setup
+        public void setUp() throws SQLException {
+            connection = connect();
+            connection.setAutoCommit(false);
+            select = connection.prepareStatement(SELECT);
+            update = connection.prepareStatement(UPDATE);
+            rotate = connection.prepareStatement(ROTATE);
+            reload = connection.prepareStatement(RELOAD);
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+    }
+
+    // ── Old: read, check, write ─────────────────────────────────
+
+    @Benchmark
+    public void selectThenUpdate(Client client) throws SQLException {
+        int family = ThreadLocalRandom.current().nextInt(families);
+        byte[] presented = current.get(family);
+        Instant now = Instant.now();
+
+        client.select.setBytes(1, presented);
+        long id = -1;
+        try (ResultSet row = client.select.executeQuery()) {
+            if (row.next() && !row.getBoolean("is_revoked")
+                    && row.getTimestamp("expires_at").toInstant().isAfter(now)) {
+                id = row.getLong("id");
+            }
+        }
+        if (id < 0) {
+            reload(client, family);
+            return;
+        }
+
+        byte[] next = newTokenHash();
+        client.update.setBytes(1, next);
+        client.update.setTimestamp(2, Timestamp.from(now.plus(30, ChronoUnit.DAYS)));
+        client.update.setLong(3, id);
+        boolean duplicate;
+        try (ResultSet row = client.update.executeQuery()) {
+            row.next();
+            duplicate = !Arrays.equals(row.getBytes(1), presented);
+        }
+        client.connection.commit();
+        current.set(family, next);
+        client.rotated++;
+        if (duplicate) {
+            client.duplicate++;
+        }
+    }
+
+    // ── New: one compare-and-set ────────────────────────────────
+
+    @Benchmark
+    public void compareAndSet(Client client) throws SQLException {
+        int family = ThreadLocalRandom.current().nextInt(families);
+        byte[] presented = current.get(family);
+        Instant now = Instant.now();
+
+        byte[] next = newTokenHash();
+        client.rotate.setBytes(1, next);
+        client.rotate.setTimestamp(2, Timestamp.from(now.plus(30, ChronoUnit.DAYS)));
+        client.rotate.setBytes(3, presented);
+        client.rotate.setString(4, CLIENT_ID);
+        client.rotate.setTimestamp(5, Timestamp.from(now));
+        boolean won;
+        try (ResultSet row = client.rotate.executeQuery()) {
+            won = row.next();
+        }
+        if (!won) {
+            reload(client, family);
+            return;
+        }
+        client.connection.commit();
+        current.set(family, next);
+        client.rotated++;
+    }
+
+    // A rejected client fetches the family's current token and retries
+    private void reload(Client client, int family) throws SQLException {
+        client.reload.setLong(1, ids[family]);
+        try (ResultSet row = client.reload.executeQuery()) {
+            row.next();
+            current.set(family, row.getBytes(1));
+        }
+        client.connection.commit();
+        client.rejected++;
+    }
+
+    private static byte[] newTokenHash() {
+        return HashUtils.sha256(HashUtils.generateRandomToken());
+    }
+
+    private static void deleteFamilies(Connection connection) throws SQLException {
+        try (Statement delete = connection.createStatement()) {
+            delete.executeUpdate("DELETE FROM refresh_token_families WHERE client_id = '" + CLIENT_ID + "'");
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(
+                env("SPRING_DATASOURCE_URL", "jdbc:postgresql://localhost:5432/authserver"),
+                env("SPRING_DATASOURCE_USERNAME", "authserver"),
+                env("SPRING_DATASOURCE_PASSWORD", "authserver"));
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value != null ? value : fallback;
+    }
+}
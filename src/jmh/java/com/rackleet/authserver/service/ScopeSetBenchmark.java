@@ -0,0 +1,111 @@
+package com.rackleet.authserver.service;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rackleet.authserver.repository.ScopeRepository;
+
+/**
+ * Consent checks, consent merges and refresh-token narrowing: split
+ * strings into HashSets (how it used to be done) against ScopeSet, both
+ * on already-parsed sets and including the parse from wire format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScopeSetBenchmark {
+
+    private static final List<String> NAMES = List.of(
+            "openid", "profile", "email", "address", "phone", "offline_access", "read", "write");
+
+    private final String granted = "openid profile email address phone offline_access read write";
+    private final String requested = "openid profile email";
+
+    private ScopeRegistry registry;
+    private ScopeSet grantedSet;
+    private ScopeSet requestedSet;
+
+    @Setup
+    public void setUp() {
+        List<com.rackleet.authserver.entity.Scope> rows = new ArrayList<>();
+        for (String name : NAMES) {
+            com.rackleet.authserver.entity.Scope row = new com.rackleet.authserver.entity.Scope();
+            row.setId((long) rows.size() + 1);
+            row.setName(name);
+            rows.add(row);
+        }
+        // The registry only ever calls findAll
+        ScopeRepository repository = (ScopeRepository) Proxy.newProxyInstance(
+                ScopeRepository.class.getClassLoader(), new Class<?>[] {ScopeRepository.class},
+                (proxy, method, args) -> rows);
+        registry = new ScopeRegistry(repository);
+        registry.refresh();
+
+        grantedSet = registry.parse(granted);
+        requestedSet = registry.parse(requested);
+    }
+
+    // ── Consent coverage ────────────────────────────────────────
+
+    @Benchmark
+    public boolean coversStrings() {
+        return Set.of(granted.split(" ")).containsAll(Set.of(requested.split(" ")));
+    }
+
+    @Benchmark
+    public boolean coversScopeSet() {
+        return grantedSet.containsAll(requestedSet);
+    }
+
+    @Benchmark
+    public boolean coversScopeSetParsed() {
+        return registry.parse(granted).containsAll(registry.parse(requested));
+    }
+
+    // ── Consent merge ───────────────────────────────────────────
+
+    @Benchmark
+    public String mergeStrings() {
+        Set<String> merged = new HashSet<>(Arrays.asList(requested.split(" ")));
+        merged.addAll(Arrays.asList(granted.split(" ")));
+        return String.join(" ", merged);
+    }
+
+    @Benchmark
+    public String mergeScopeSetParsed() {
+        return registry.format(registry.parse(requested).union(registry.parse(granted)));
+    }
+
+    // ── Refresh-token narrowing ─────────────────────────────────
+
+    @Benchmark
+    public Set<String> narrowStrings() {
+        Set<String> extra = new HashSet<>(Arrays.asList(requested.split(" ")));
+        extra.removeAll(Set.of(granted.split(" ")));
+        return extra;
+    }
+
+    @Benchmark
+    public ScopeSet narrowScopeSet() {
+        return requestedSet.minus(grantedSet);
+    }
+}
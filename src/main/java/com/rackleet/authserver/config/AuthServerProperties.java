@@ -0,0 +1,153 @@
+package com.rackleet.authserver.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Tunables for the authorization server, bound from the "authserver" prefix
+ * in application.yml. Defaults here are what the server runs with when a
+ * property is not set.
+ */
+@Data
+@ConfigurationProperties(prefix = "authserver")
+public class AuthServerProperties {
+
+    // The iss claim in every token and the issuer in the discovery document.
+    // Must be the externally visible base URL of this server.
+    private String issuer = "http://localhost:9000";
+
+    private final ClientAuth clientAuth = new ClientAuth();
+    private final ClientRegistry clientRegistry = new ClientRegistry();
+    private final Keys keys = new Keys();
+    private final Introspection introspection = new Introspection();
+    private final Revocation revocation = new Revocation();
+    private final RefreshTokens refreshTokens = new RefreshTokens();
+    private final AuthorizationCodes authorizationCodes = new AuthorizationCodes();
+    private final Purge purge = new Purge();
+    private final Partitions partitions = new Partitions();
+
+    @Data
+    public static class ClientAuth {
+
+        // How long a successful client_secret verification is trusted
+        // before bcrypt has to run again for the same secret
+        private Duration secretCacheTtl = Duration.ofMinutes(5);
+
+        // Upper bound on cached verifications - one per (client, secret) pair
+        private long secretCacheMaxSize = 10_000;
+    }
+
+    @Data
+    public static class ClientRegistry {
+
+        // Cached policies older than this are reloaded in the background.
+        // Bounds how long a change made on another node takes to show up here.
+        private Duration refreshAfter = Duration.ofSeconds(30);
+
+        // Policies nobody has asked for in this long are dropped entirely
+        private Duration expireAfter = Duration.ofMinutes(10);
+
+        private long maxSize = 10_000;
+    }
+
+    @Data
+    public static class Introspection {
+
+        // Verified access tokens remembered until their exp
+        private long cacheMaxSize = 100_000;
+
+        // Most tokens accepted by one /oauth2/introspect/batch call
+        private int maxBatchSize = 100;
+    }
+
+    @Data
+    public static class Revocation {
+
+        // Most tokens listed in one /api/tokens/revoke call
+        private int maxBulkTokens = 1_000;
+    }
+
+    @Data
+    public static class RefreshTokens {
+
+        // Base64 key, at least 32 bytes, for the MAC every refresh token
+        // carries. Required, and must be the same on every node.
+        private String macKey;
+
+        // Until when the plain random tokens issued before the rt_ format
+        // are still accepted: the upgrade time plus the longest client
+        // refresh token TTL. They reach the database unchecked, so unset
+        // (the default) turns them away.
+        private Instant acceptLegacyUntil;
+    }
+
+    @Data
+    public static class AuthorizationCodes {
+
+        // "database": a row per code, marked used on redemption.
+        // "encrypted": the grant is sealed into the code itself and nothing
+        // is stored until redemption records the code's id (see
+        // AuthorizationCodeCodec). Codes of both kinds are always redeemable.
+        private String format = "database";
+
+        // Base64 AES-256 key for encrypted codes. Must be the same on every
+        // node. Required when format is "encrypted" - startup fails without
+        // it. Unset in database format, ac_ codes are never valid.
+        private String encryptionKey;
+    }
+
+    @Data
+    public static class Purge {
+
+        // Rows deleted per statement. Each batch is its own short
+        // transaction, so token requests never queue behind a big delete.
+        private int batchSize = 1_000;
+
+        // Sleep between batches, to leave the database room for live traffic
+        private Duration batchPause = Duration.ofMillis(100);
+
+        // How long rows are kept past expiry. Until then a replayed code
+        // or token still trips reuse detection rather than reading as unknown.
+        // Also decides when a partition is old enough to drop.
+        private Duration retention = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Partitions {
+
+        // How far past the longest access token lifetime daily partitions
+        // are created ahead of time. A row whose expiry has no partition
+        // can't be inserted, so this is the margin for missed runs.
+        private Duration lookahead = Duration.ofDays(7);
+    }
+
+    @Data
+    public static class Keys {
+
+        // Where signing keys are kept: "memory" (lost on restart),
+        // "file" (single node) or "database" (shared by every node)
+        private String store = "memory";
+
+        // Encrypts keys at rest for the file and database stores
+        private String passphrase;
+
+        // Used by the file store only
+        private Path file = Path.of("keys/signing-keys.jwe");
+
+        // How long each key signs before its successor takes over
+        private Duration rotationInterval = Duration.ofDays(30);
+
+        // How long a standby key sits in the JWKS before it starts signing.
+        // Must exceed how long resource servers cache the JWKS.
+        private Duration standbyLead = Duration.ofDays(1);
+
+        // How often the rotation pass runs. Also how long another node may
+        // keep signing with a key after this one has switched away from it.
+        private Duration rotationCheckInterval = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,13 @@
+package com.rackleet.authserver.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on @Scheduled for background maintenance jobs
+ * (registry refreshes and the like). Nothing here runs on the request path.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,11 +1,11 @@
 package com.rackleet.authserver.controller;
 
 import com.rackleet.authserver.dto.request.AuthorizationRequest;
-import com.rackleet.authserver.entity.OAuthClient;
 import com.rackleet.authserver.entity.User;
 import com.rackleet.authserver.exception.OAuthError;
 import com.rackleet.authserver.exception.OAuthRedirectException;
 import com.rackleet.authserver.service.AuthorizationService;
+import com.rackleet.authserver.service.ClientPolicy;
 import com.rackleet.authserver.service.ConsentService;
 import com.rackleet.authserver.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -42,7 +42,7 @@ public class AuthorizationController {
                 responseType, clientId, redirectUri, scope, state,
                 codeChallenge, codeChallengeMethod);
 
-        OAuthClient client = authorizationService.validateAuthorizationRequest(authRequest);
+        ClientPolicy client = authorizationService.validateAuthorizationRequest(authRequest);
 
         // After validation, scope may have been updated with defaults
         String loginPage = buildLoginPage(authRequest, client.getClientName(), null);
@@ -67,7 +67,7 @@ public class AuthorizationController {
                 responseType, clientId, redirectUri, scope, state,
                 codeChallenge, codeChallengeMethod);
 
-        OAuthClient client = authorizationService.validateAuthorizationRequest(authRequest);
+        ClientPolicy client = authorizationService.validateAuthorizationRequest(authRequest);
 
         User user;
         try {
@@ -0,0 +1,45 @@
+package com.rackleet.authserver.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * A JSON document rendered once and served as-is until its source changes.
+ *
+ * The ETag is a hash of the bytes, so every node serving the same content
+ * hands out the same ETag. Spring answers a matching If-None-Match with
+ * 304 and no body on its own when the ResponseEntity carries the ETag.
+ *
+ * @param version the source version the document was rendered from
+ */
+record CachedDocument(long version, byte[] body, String etag) {
+
+    static CachedDocument render(long version, String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        return new CachedDocument(version, body, strongEtag(body));
+    }
+
+    ResponseEntity<byte[]> toResponse(CacheControl cacheControl) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(cacheControl)
+                .eTag(etag)
+                .body(body);
+    }
+
+    private static String strongEtag(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is guaranteed to be available in every JVM
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+}
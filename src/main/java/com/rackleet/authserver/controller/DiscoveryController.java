@@ -0,0 +1,81 @@
+package com.rackleet.authserver.controller;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.service.ScopeRegistry;
+import com.rackleet.authserver.service.ScopeSet;
+import com.rackleet.authserver.util.JsonUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Authorization server metadata (RFC 8414), also served at the OpenID
+ * discovery path that most resource server libraries look for.
+ *
+ * Only the endpoints and features this server actually implements are
+ * advertised. The document changes only when the set of registered scopes
+ * does, so it is rendered once and served from a cached byte array.
+ */
+@RestController
+@RequiredArgsConstructor
+public class DiscoveryController {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofHours(1));
+
+    private final AuthServerProperties properties;
+    private final ScopeRegistry scopeRegistry;
+
+    private volatile Rendered cached;
+
+    // The document and the scope set it lists
+    private record Rendered(ScopeSet scopes, CachedDocument document) {
+    }
+
+    @GetMapping({"/.well-known/openid-configuration", "/.well-known/oauth-authorization-server"})
+    public ResponseEntity<byte[]> configuration() {
+        return current().toResponse(CACHE_CONTROL);
+    }
+
+    private CachedDocument current() {
+        // Scope ids never change meaning, so the set alone tells us
+        // whether scopes_supported would render any differently
+        ScopeSet scopes = scopeRegistry.getAllScopes();
+        Rendered rendered = cached;
+        if (rendered == null || !rendered.scopes().equals(scopes)) {
+            rendered = new Rendered(scopes, CachedDocument.render(0, JsonUtils.toJson(metadata(scopes))));
+            cached = rendered;
+        }
+        return rendered.document();
+    }
+
+    private Map<String, Object> metadata(ScopeSet scopes) {
+        String issuer = properties.getIssuer();
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("issuer", issuer);
+        metadata.put("authorization_endpoint", issuer + "/oauth2/authorize");
+        metadata.put("token_endpoint", issuer + "/oauth2/token");
+        metadata.put("jwks_uri", issuer + "/oauth2/jwks");
+        metadata.put("revocation_endpoint", issuer + "/oauth2/revoke");
+        metadata.put("introspection_endpoint", issuer + "/oauth2/introspect");
+        metadata.put("scopes_supported", scopeRegistry.namesOf(scopes));
+        metadata.put("response_types_supported", List.of("code"));
+        metadata.put("grant_types_supported", List.of("authorization_code", "refresh_token"));
+        metadata.put("token_endpoint_auth_methods_supported",
+                List.of("client_secret_basic", "client_secret_post", "none"));
+        metadata.put("code_challenge_methods_supported", List.of("S256"));
+        metadata.put("subject_types_supported", List.of("public"));
+        // Required in OpenID discovery documents, which must list RS256
+        metadata.put("id_token_signing_alg_values_supported", List.of(JWSAlgorithm.RS256.getName()));
+        return metadata;
+    }
+}
@@ -2,10 +2,10 @@ package com.rackleet.authserver.controller;
 
 import org.springframework.web.bind.annotation.RestController;
 
-import com.rackleet.authserver.entity.OAuthClient;
 import com.rackleet.authserver.exception.OAuthError;
 import com.rackleet.authserver.exception.OAuthException;
 import com.rackleet.authserver.service.ClientAuthenticationService; 
+import com.rackleet.authserver.service.ClientPolicy;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -39,7 +39,7 @@ public class HealthController {
     // Temporary for testing. TODO: Remove this method after completed testing.
     @PostMapping("/test-client-auth")
     public Map<String, String> testClientAuth(HttpServletRequest request) {
-        OAuthClient client = clientAuthenticationService.authenticateClient(request);
+        ClientPolicy client = clientAuthenticationService.authenticateClient(request);
         return Map.of(
             "authenticated_client", client.getClientId(),
             "auth_method", client.getTokenEndpointAuthMethod()
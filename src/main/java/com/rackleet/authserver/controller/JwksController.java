@@ -1,49 +1,59 @@
 package com.rackleet.authserver.controller;
 
-import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
 import com.rackleet.authserver.crypto.KeyManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.CacheControl;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.LinkedHashMap;
+import java.time.Duration;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 
 @RestController
 @RequiredArgsConstructor
 public class JwksController {
     
+    // Cache for 1 hour. Public keys change rarely
+    // caching is safe and reduces load
+    // Resource servers typically cache JWKS responses and only re-fetch
+    // when they encounter a kid they dont recognize
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofHours(1));
+
     private final KeyManager keyManager;
 
+    // Rendered once per key set change, then served byte for byte
+    private volatile CachedDocument cached;
+
     @GetMapping("/oauth2/jwks")
-    public ResponseEntity<Map<String, Object>> jwks() {
-
-        // Get all public keys - private material already stripped by KeyManager
-        Map<String, RSAKey> publicKeys = keyManager.getAllPublicKeys();
-
-        // Convert each RSAKey into JSON
-        // toJSONObject() produces the standard JWK format with
-        // kty, use, kid, alg, n, e
-        List<Map<String, Object>> keyList = publicKeys.values().stream()
-            .map(RSAKey::toJSONObject)
-            .collect(Collectors.toList());
-
-        Map<String, Object> jwks = new LinkedHashMap<>();
-        jwks.put("keys", keyList);
-
-        // Cache for 1 hour. Public keys change rarely
-        // caching is safe and reduces load
-        // Resource servers typically cache JWKS responses and only re-fetch
-        // when they encounter a kid they dont recognize
-        return ResponseEntity.ok()
-            .contentType(MediaType.APPLICATION_JSON)
-            .cacheControl(CacheControl.maxAge(java.time.Duration.ofHours(1)))
-            .body(jwks);
+    public ResponseEntity<byte[]> jwks() {
+        return current().toResponse(CACHE_CONTROL);
+    }
+
+    private CachedDocument current() {
+        long version = keyManager.getKeySetVersion();
+        CachedDocument document = cached;
+        if (document == null || document.version() != version) {
+            // Concurrent misses may each render - harmless, the output is identical
+            document = render(version);
+            cached = document;
+        }
+        return document;
+    }
+
+    private CachedDocument render(long version) {
+        // Public keys only - private material already stripped by KeyManager.
+        // Sorted by kid so every node renders the same bytes (and ETag).
+        List<JWK> publicKeys = keyManager.getAllPublicKeys().values().stream()
+            .sorted(Comparator.comparing(JWK::getKeyID))
+            .toList();
+
+        // Standard JWK format per key:
+        // kty, use, kid, alg plus n/e (RSA), crv/x/y (EC) or crv/x (OKP)
+        return CachedDocument.render(version, new JWKSet(publicKeys).toString());
     }
 }
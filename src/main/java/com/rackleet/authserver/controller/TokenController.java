@@ -1,11 +1,12 @@
 // controller/TokenController.java
 package com.rackleet.authserver.controller;
 
+import com.rackleet.authserver.config.AuthServerProperties;
 import com.rackleet.authserver.dto.request.TokenRequest;
-import com.rackleet.authserver.entity.OAuthClient;
 import com.rackleet.authserver.exception.OAuthError;
 import com.rackleet.authserver.exception.OAuthException;
 import com.rackleet.authserver.service.ClientAuthenticationService;
+import com.rackleet.authserver.service.ClientPolicy;
 import com.rackleet.authserver.service.TokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +17,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -24,6 +27,7 @@ public class TokenController {
 
     private final ClientAuthenticationService clientAuthenticationService;
     private final TokenService tokenService;
+    private final AuthServerProperties properties;
 
     /**
      * POST /oauth2/token
@@ -33,7 +37,7 @@ public class TokenController {
     @PostMapping("/oauth2/token")
     public ResponseEntity<Map<String, Object>> token(HttpServletRequest request) {
 
-        OAuthClient client = clientAuthenticationService.authenticateClient(request);
+        ClientPolicy client = clientAuthenticationService.authenticateClient(request);
 
         String grantType = request.getParameter("grant_type");
         if (grantType == null || grantType.isBlank()) {
@@ -77,7 +81,7 @@ public class TokenController {
     @PostMapping("/oauth2/revoke")
     public ResponseEntity<Void> revoke(HttpServletRequest request) {
 
-        OAuthClient client = clientAuthenticationService.authenticateClient(request);
+        ClientPolicy client = clientAuthenticationService.authenticateClient(request);
 
         String token = request.getParameter("token");
         if (token == null || token.isBlank()) {
@@ -125,6 +129,44 @@ public class TokenController {
                 .body(result);
     }
 
+    /**
+     * POST /oauth2/introspect/batch
+     *
+     * Introspects several tokens for one client authentication, e.g. a
+     * gateway validating a burst of requests. Takes the token parameter
+     * repeated once per token and returns {"results": [...]}, one RFC 7662
+     * response per token in the same order.
+     */
+    @PostMapping("/oauth2/introspect/batch")
+    public ResponseEntity<Map<String, Object>> introspectBatch(HttpServletRequest request) {
+
+        clientAuthenticationService.authenticateClient(request);
+
+        String[] tokens = request.getParameterValues("token");
+        if (tokens == null || tokens.length == 0) {
+            throw new OAuthException(OAuthError.INVALID_REQUEST,
+                    "token is required", HttpStatus.BAD_REQUEST);
+        }
+
+        int maxBatchSize = properties.getIntrospection().getMaxBatchSize();
+        if (tokens.length > maxBatchSize) {
+            throw new OAuthException(OAuthError.INVALID_REQUEST,
+                    "At most " + maxBatchSize + " tokens per request", HttpStatus.BAD_REQUEST);
+        }
+        if (Arrays.stream(tokens).anyMatch(token -> token == null || token.isBlank())) {
+            throw new OAuthException(OAuthError.INVALID_REQUEST,
+                    "token must not be blank", HttpStatus.BAD_REQUEST);
+        }
+
+        List<Map<String, Object>> results = tokenService.introspectTokens(Arrays.asList(tokens));
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noStore())
+                .header("Pragma", "no-cache")
+                .body(Map.of("results", results));
+    }
+
     // ── Request Extractors ──────────────────────────────────────
 
     private TokenRequest extractAuthCodeRequest(HttpServletRequest request) {
@@ -0,0 +1,34 @@
+package com.rackleet.authserver.controller;
+
+import com.rackleet.authserver.dto.request.BulkRevocationRequest;
+import com.rackleet.authserver.dto.response.BulkRevocationResponse;
+import com.rackleet.authserver.service.ClientAuthenticationService;
+import com.rackleet.authserver.service.ClientPolicy;
+import com.rackleet.authserver.service.TokenRevocationService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Revokes many tokens at once - logout-everywhere and incident response.
+ * Single tokens go through /oauth2/revoke.
+ *
+ * The caller authenticates as a confidential client, the same way as at
+ * the token endpoint, and can only revoke tokens issued to itself.
+ */
+@RestController
+@RequestMapping("/api/tokens")
+@RequiredArgsConstructor
+public class TokenRevocationController {
+
+    private final TokenRevocationService tokenRevocationService;
+    private final ClientAuthenticationService clientAuthenticationService;
+
+    @PostMapping("/revoke")
+    public ResponseEntity<BulkRevocationResponse> revoke(@RequestBody BulkRevocationRequest request,
+                                                         HttpServletRequest httpRequest) {
+        ClientPolicy client = clientAuthenticationService.authenticateClient(httpRequest);
+        return ResponseEntity.ok(tokenRevocationService.revoke(request, client));
+    }
+}
@@ -1,7 +1,11 @@
 package com.rackleet.authserver.controller;
 
+import com.rackleet.authserver.dto.request.UserCredentialsRequest;
 import com.rackleet.authserver.dto.request.UserRegistrationRequest;
+import com.rackleet.authserver.dto.response.BulkRevocationResponse;
 import com.rackleet.authserver.dto.response.UserResponse;
+import com.rackleet.authserver.entity.User;
+import com.rackleet.authserver.service.TokenRevocationService;
 import com.rackleet.authserver.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -18,11 +22,20 @@ import org.springframework.web.bind.annotation.RestController;
 public class UserController {
     
     private final UserService userService;
+    private final TokenRevocationService tokenRevocationService;
 
     @PostMapping("/register")
     public ResponseEntity<UserResponse> registerUser(@Valid @RequestBody UserRegistrationRequest request) {
         UserResponse response = userService.registerUser(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
+
+    // Logout everywhere - the user signs in with their own password and
+    // every refresh token they hold, with any client, is revoked
+    @PostMapping("/revoke-tokens")
+    public ResponseEntity<BulkRevocationResponse> revokeTokens(@Valid @RequestBody UserCredentialsRequest request) {
+        User user = userService.authenticateUser(request.getUsername(), request.getPassword());
+        return ResponseEntity.ok(tokenRevocationService.revokeAllForUser(user.getId()));
+    }
     
 }
@@ -0,0 +1,201 @@
+package com.rackleet.authserver.crypto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.stereotype.Component;
+
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.entity.AuthorizationCode;
+
+/**
+ * Encrypted authorization codes, for authserver.authorization-codes.format
+ * = encrypted:
+ *
+ *   "ac_" + base64url( nonce (12) | AES-256-GCM(grant) )
+ *
+ * The grant - user, client, redirect URI, scope, PKCE challenge and
+ * expiry - travels inside the code, so issuing one writes nothing. GCM
+ * authenticates it: a code that was altered, truncated or sealed under
+ * another key doesn't open. The nonce is random per code and doubles as
+ * its id in redeemed_codes, which is what keeps a code single-use.
+ *
+ * Codes of either format are accepted at the token endpoint whatever the
+ * configured format, so switching doesn't strand codes in flight - as
+ * long as the key stays configured. Without one, format=encrypted fails
+ * startup and ac_ codes are simply never valid.
+ */
+@Component
+public class AuthorizationCodeCodec {
+
+    private static final String PREFIX = "ac_";
+    private static final String CIPHER = "AES/GCM/NoPadding";
+
+    private static final int KEY_LENGTH = 32;
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    // Bound into every code, so a later layout can't be confused with this one
+    private static final byte[] VERSION = {1};
+
+    /**
+     * A code that decrypted. grant is a detached AuthorizationCode -
+     * never saved, it only carries the fields the token endpoint checks.
+     */
+    public record Opened(byte[] codeId, AuthorizationCode grant) {
+    }
+
+    // Null when no key is configured, which only format=database allows
+    private final SecretKeySpec key;
+    // Cipher isn't thread-safe; init per call is cheap, getInstance isn't
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(AuthorizationCodeCodec::newCipher);
+
+    public AuthorizationCodeCodec(AuthServerProperties properties) {
+        AuthServerProperties.AuthorizationCodes config = properties.getAuthorizationCodes();
+        byte[] keyBytes = encryptionKey(config);
+        this.key = keyBytes != null ? new SecretKeySpec(keyBytes, "AES") : null;
+    }
+
+    public String seal(AuthorizationCode grant) {
+        if (key == null) {
+            throw new IllegalStateException("authserver.authorization-codes.encryption-key is not set");
+        }
+        byte[] nonce = HashUtils.randomBytes(NONCE_LENGTH);
+        try {
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(VERSION);
+            byte[] sealed = cipher.doFinal(serialize(grant));
+
+            byte[] payload = Arrays.copyOf(nonce, NONCE_LENGTH + sealed.length);
+            System.arraycopy(sealed, 0, payload, NONCE_LENGTH, sealed.length);
+            return PREFIX + HashUtils.base64Url(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to seal authorization code", e);
+        }
+    }
+
+    /**
+     * True if the code claims to be an encrypted one. A prefix check -
+     * says nothing about whether it will open.
+     */
+    public boolean isSealed(String code) {
+        return code.startsWith(PREFIX);
+    }
+
+    /**
+     * Decrypts a code. Null if it isn't one this server sealed with its
+     * current key. Expiry and the other grant checks are the caller's.
+     */
+    public Opened open(String code) {
+        if (key == null) {
+            return null;
+        }
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(code.substring(PREFIX.length()));
+            if (payload.length <= NONCE_LENGTH + TAG_BITS / 8) {
+                return null;
+            }
+            byte[] nonce = Arrays.copyOf(payload, NONCE_LENGTH);
+
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(VERSION);
+            byte[] plaintext = cipher.doFinal(payload, NONCE_LENGTH, payload.length - NONCE_LENGTH);
+            return new Opened(nonce, deserialize(plaintext));
+        } catch (IllegalArgumentException | GeneralSecurityException | IOException e) {
+            return null;
+        }
+    }
+
+    // ── Internals ───────────────────────────────────────────────
+
+    private static byte[] serialize(AuthorizationCode grant) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(grant.getExpiresAt().getEpochSecond());
+            out.writeLong(grant.getUserId());
+            writeString(out, grant.getClientId());
+            writeString(out, grant.getRedirectUri());
+            writeString(out, grant.getScope());
+            writeString(out, grant.getCodeChallenge());
+            writeString(out, grant.getCodeChallengeMethod());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    private static AuthorizationCode deserialize(byte[] plaintext) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(plaintext));
+        AuthorizationCode grant = new AuthorizationCode();
+        grant.setExpiresAt(Instant.ofEpochSecond(in.readLong()));
+        grant.setUserId(in.readLong());
+        grant.setClientId(readString(in));
+        grant.setRedirectUri(readString(in));
+        grant.setScope(readString(in));
+        grant.setCodeChallenge(readString(in));
+        grant.setCodeChallengeMethod(readString(in));
+        return grant;
+    }
+
+    // Length-prefixed UTF-8, -1 for null. Redirect URIs can outgrow writeUTF.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("Truncated authorization code");
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encryptionKey(AuthServerProperties.AuthorizationCodes config) {
+        String configured = config.getEncryptionKey();
+        if (configured == null || configured.isBlank()) {
+            // A random key would strand every code on restart and on other nodes
+            if ("encrypted".equals(config.getFormat())) {
+                throw new IllegalStateException("authserver.authorization-codes.encryption-key is required "
+                        + "when format is encrypted - " + KEY_LENGTH + " random bytes, base64, the same on every node");
+            }
+            return null;
+        }
+        byte[] key = Base64.getDecoder().decode(configured.trim());
+        if (key.length != KEY_LENGTH) {
+            throw new IllegalStateException(
+                    "authserver.authorization-codes.encryption-key must be " + KEY_LENGTH + " bytes");
+        }
+        return key;
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(CIPHER);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("AES-GCM not available", e);
+        }
+    }
+}
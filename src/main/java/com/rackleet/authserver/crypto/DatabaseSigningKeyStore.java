@@ -0,0 +1,92 @@
+package com.rackleet.authserver.crypto;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.entity.SigningKey;
+import com.rackleet.authserver.repository.SigningKeyRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps keys in the signing_keys table, each row encrypted with the
+ * configured passphrase (see KeyEncryptor). Every node pointed at the same
+ * database loads the same key set, so a token signed on one node verifies
+ * on all of them and survives restarts.
+ */
+@Component
+@ConditionalOnProperty(prefix = "authserver.keys", name = "store", havingValue = "database")
+@Slf4j
+public class DatabaseSigningKeyStore implements SigningKeyStore {
+
+    // Arbitrary, but must not collide with other advisory locks in this database
+    private static final long INIT_LOCK_ID = 0x5349474E4B455953L; // "SIGNKEYS"
+
+    private final SigningKeyRepository repository;
+    private final KeyEncryptor encryptor;
+
+    public DatabaseSigningKeyStore(SigningKeyRepository repository, AuthServerProperties properties) {
+        this.repository = repository;
+        this.encryptor = new KeyEncryptor(properties.getKeys().getPassphrase());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<JWK> loadAll() {
+        return repository.findAll().stream()
+                .map(this::decrypt)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public List<JWK> loadOrInitialize(UnaryOperator<List<JWK>> missingKeys) {
+        // Held until commit - a second node booting now waits here and
+        // then finds the keys the first one saved
+        repository.acquireXactLock(INIT_LOCK_ID);
+
+        List<JWK> stored = loadAll();
+        List<JWK> added = missingKeys.apply(stored);
+        if (added.isEmpty()) {
+            return stored;
+        }
+        added.forEach(this::save);
+        log.info("Saved {} new signing keys to the database", added.size());
+        return loadAll();
+    }
+
+    @Override
+    @Transactional
+    public void save(JWK key) {
+        if (repository.existsByKid(key.getKeyID())) {
+            return; // keys are immutable once stored
+        }
+
+        SigningKey row = new SigningKey();
+        row.setKid(key.getKeyID());
+        row.setAlgorithm(key.getAlgorithm().getName());
+        row.setEncryptedJwk(encryptor.encrypt(key.toJSONString()));
+        repository.save(row);
+    }
+
+    @Override
+    @Transactional
+    public void delete(String kid) {
+        repository.deleteByKid(kid);
+    }
+
+    private JWK decrypt(SigningKey row) {
+        try {
+            return JWK.parse(encryptor.decrypt(row.getEncryptedJwk()));
+        } catch (ParseException e) {
+            throw new IllegalStateException("Corrupt signing key '" + row.getKid() + "'", e);
+        }
+    }
+}
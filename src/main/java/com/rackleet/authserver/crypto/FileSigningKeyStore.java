@@ -0,0 +1,114 @@
+package com.rackleet.authserver.crypto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.rackleet.authserver.config.AuthServerProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the whole key set in one file, encrypted with the configured
+ * passphrase (see KeyEncryptor). Restarts reuse the same keys, so
+ * outstanding tokens stay verifiable.
+ *
+ * Meant for single-node deployments or a file on shared storage that
+ * only one node writes. Use the database store when several nodes may
+ * generate keys.
+ */
+@Component
+@ConditionalOnProperty(prefix = "authserver.keys", name = "store", havingValue = "file")
+@Slf4j
+public class FileSigningKeyStore implements SigningKeyStore {
+
+    private final Path file;
+    private final KeyEncryptor encryptor;
+
+    public FileSigningKeyStore(AuthServerProperties properties) {
+        this.file = properties.getKeys().getFile();
+        this.encryptor = new KeyEncryptor(properties.getKeys().getPassphrase());
+    }
+
+    @Override
+    public synchronized List<JWK> loadAll() {
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        try {
+            String json = encryptor.decrypt(Files.readString(file, StandardCharsets.US_ASCII).trim());
+            return new ArrayList<>(JWKSet.parse(json).getKeys());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read signing keys from " + file, e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Corrupt signing key file " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized List<JWK> loadOrInitialize(UnaryOperator<List<JWK>> missingKeys) {
+        List<JWK> keys = loadAll();
+        List<JWK> added = missingKeys.apply(keys);
+        if (!added.isEmpty()) {
+            keys.addAll(added);
+            write(keys);
+            log.info("Saved {} new signing keys to {}", added.size(), file);
+        }
+        return keys;
+    }
+
+    @Override
+    public synchronized void save(JWK key) {
+        List<JWK> keys = loadAll();
+        keys.removeIf(existing -> existing.getKeyID().equals(key.getKeyID()));
+        keys.add(key);
+        write(keys);
+    }
+
+    @Override
+    public synchronized void delete(String kid) {
+        List<JWK> keys = loadAll();
+        if (keys.removeIf(existing -> existing.getKeyID().equals(kid))) {
+            write(keys);
+        }
+    }
+
+    // Write to a temp file and rename, so a crash never leaves half a key set
+    private void write(List<JWK> keys) {
+        // false = keep private key material; the whole set is encrypted below
+        String json = new JWKSet(keys).toString(false);
+        String encrypted = encryptor.encrypt(json);
+
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, "signing-keys", ".tmp");
+            restrictToOwner(temp);
+            Files.writeString(temp, encrypted, StandardCharsets.US_ASCII);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write signing keys to " + file, e);
+        }
+    }
+
+    private void restrictToOwner(Path path) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX filesystem - rely on the directory's permissions
+        }
+    }
+}
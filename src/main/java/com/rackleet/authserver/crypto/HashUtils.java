@@ -1,14 +1,73 @@
 package com.rackleet.authserver.crypto;
 
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.DrbgParameters;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.util.Base64;
+import java.util.Arrays;
+import java.util.UUID;
 
+/**
+ * Hashing and encoding for tokens, codes and PKCE verifiers. These run on
+ * every token request and every introspection, so nothing here goes
+ * through a provider lookup or a formatter per call: each thread keeps
+ * its own digest and scratch buffers, and hex and base64url are encoded
+ * from lookup tables. The only allocations left are the results.
+ *
+ * Random values come from a per-thread DRBG rather than one shared
+ * SecureRandom, which every request thread would otherwise queue on.
+ * Each instance seeds itself from the system entropy source once, when
+ * its thread first needs it, and never blocks after that.
+ */
 public class HashUtils {
 
-    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final int SHA256_LENGTH = 32;
+    private static final int RANDOM_POOL_SIZE = 1024;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE64URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+
+    // MessageDigest isn't thread-safe and getInstance walks the provider
+    // list every time, so each thread keeps one (reset by every digest()
+    // call) next to its scratch buffers - all behind a single lookup
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private static final class Scratch {
+        final MessageDigest sha256 = newSha256();
+        // Big enough for any token or verifier this server hands out, and
+        // for signed JWTs being introspected; longer input allocates
+        final byte[] text = new byte[2048];
+        final byte[] hash = new byte[SHA256_LENGTH];
+        // Built on first use, so threads that only hash don't pay for seeding
+        private SecureRandom random;
+        // Drawn from the DRBG in bulk - each generate call carries a fixed
+        // state update, which would otherwise dominate a 16 or 32 byte read
+        private final byte[] pool = new byte[RANDOM_POOL_SIZE];
+        private int poolUsed = RANDOM_POOL_SIZE;
+
+        SecureRandom drbg() {
+            if (random == null) {
+                random = newDrbg();
+            }
+            return random;
+        }
+
+        // Fills the first length bytes of out. Bytes handed out are wiped
+        // from the pool, so each one is only ever used once.
+        void nextBytes(byte[] out, int length) {
+            if (RANDOM_POOL_SIZE - poolUsed < length) {
+                drbg().nextBytes(pool);
+                poolUsed = 0;
+            }
+            System.arraycopy(pool, poolUsed, out, 0, length);
+            Arrays.fill(pool, poolUsed, poolUsed + length, (byte) 0);
+            poolUsed += length;
+        }
+    }
 
     /**
      * Generates a cryptographically random string suitable for
@@ -16,39 +75,169 @@ public class HashUtils {
      * 32 bytes = 256 bits of entropy, Base64url-encoded.
      */
     public static String generateRandomToken(){
-        byte[] bytes = new byte[32];
-        SECURE_RANDOM.nextBytes(bytes);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Scratch scratch = SCRATCH.get();
+        scratch.nextBytes(scratch.hash, SHA256_LENGTH);
+        return base64Url(scratch.hash, SHA256_LENGTH, scratch);
     }
 
     /**
-     * SHA-256 hash, returned as a lowercase hex string.
+     * Fresh random bytes from this thread's DRBG.
+     */
+    public static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        Scratch scratch = SCRATCH.get();
+        if (length > RANDOM_POOL_SIZE) {
+            scratch.drbg().nextBytes(bytes); // too big to be worth pooling
+        } else {
+            scratch.nextBytes(bytes, length);
+        }
+        return bytes;
+    }
+
+    /**
+     * Random (version 4) UUID, for JTIs. Same format as UUID.randomUUID(),
+     * drawn from this thread's DRBG instead of the JDK's shared instance.
+     */
+    public static UUID randomUuid() {
+        Scratch scratch = SCRATCH.get();
+        byte[] bytes = scratch.hash;
+        scratch.nextBytes(bytes, 16);
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = msb << 8 | (bytes[i] & 0xff);
+            lsb = lsb << 8 | (bytes[i + 8] & 0xff);
+        }
+        msb = msb & ~0xf000L | 0x4000L;                        // version 4
+        lsb = lsb & 0x3fffffffffffffffL | 0x8000000000000000L; // IETF variant
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * SHA-256 hash, returned as the raw 32 bytes.
      * Used for authorization codes and refresh tokens - credentials
      * that are high-entropy random strings (not user-chosen passwords),
      * so a fast hash is appropriate. Bcrypt would be overkill and
      * add unnecessary latency to every token exchange.
+     * Stored as-is in the bytea hash columns.
+     */
+    public static byte[] sha256(String input) {
+        return update(SCRATCH.get(), input, StandardCharsets.UTF_8).digest();
+    }
+
+    /**
+     * SHA-256 of raw bytes, for secrets that never exist as text.
      */
-    public static String sha256(String input) {
+    public static byte[] sha256(byte[] input) {
+        return SCRATCH.get().sha256.digest(input);
+    }
+
+    /**
+     * PKCE S256 code challenge (RFC 7636 §4.2): BASE64URL(SHA256(ASCII(verifier))),
+     * unpadded. The same value the client sent as code_challenge.
+     */
+    public static String s256Challenge(String codeVerifier) {
+        Scratch scratch = SCRATCH.get();
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(input.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(hashBytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
+            update(scratch, codeVerifier, StandardCharsets.US_ASCII).digest(scratch.hash, 0, SHA256_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalStateException("SHA-256 digest failed", e);
         }
+        return base64Url(scratch.hash, SHA256_LENGTH, scratch);
     }
 
     /**
      * Converts a byte array to a lowercase hex string.
-     * SHA-256 produces 32 bytes -> 64 hex characters,
-     * which matches the varchar(64) column size.
+     * For hashes that have to be text - in-memory map keys and
+     * revocation event payloads - never for storage.
      */
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder hex = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            hex.append(String.format("%02x", b));
+    public static String toHex(byte[] bytes) {
+        int length = bytes.length * 2;
+        byte[] out = output(SCRATCH.get(), length);
+        for (int i = 0, j = 0; i < bytes.length; i++) {
+            out[j++] = HEX[(bytes[i] >> 4) & 0x0f];
+            out[j++] = HEX[bytes[i] & 0x0f];
         }
-        return hex.toString();
+        return new String(out, 0, length, StandardCharsets.ISO_8859_1);
     }
-    
+
+    /**
+     * Base64url without padding, as used by JOSE and PKCE.
+     */
+    public static String base64Url(byte[] bytes) {
+        return base64Url(bytes, bytes.length, SCRATCH.get());
+    }
+
+    // ── Internals ───────────────────────────────────────────────
+
+    private static String base64Url(byte[] bytes, int length, Scratch scratch) {
+        byte[] out = output(scratch, (length * 4 + 2) / 3);
+        int i = 0;
+        int j = 0;
+        for (int whole = length - length % 3; i < whole; i += 3) {
+            int bits = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff);
+            out[j++] = BASE64URL[bits >>> 18];
+            out[j++] = BASE64URL[(bits >>> 12) & 0x3f];
+            out[j++] = BASE64URL[(bits >>> 6) & 0x3f];
+            out[j++] = BASE64URL[bits & 0x3f];
+        }
+        if (i < length) {
+            int bits = (bytes[i] & 0xff) << 16 | (i + 1 < length ? (bytes[i + 1] & 0xff) << 8 : 0);
+            out[j++] = BASE64URL[bits >>> 18];
+            out[j++] = BASE64URL[(bits >>> 12) & 0x3f];
+            if (i + 1 < length) {
+                out[j++] = BASE64URL[(bits >>> 6) & 0x3f];
+            }
+        }
+        return new String(out, 0, j, StandardCharsets.ISO_8859_1);
+    }
+
+    // Feeds the string into this thread's digest. Tokens, codes and
+    // verifiers are ASCII, where every charset agrees, so they are copied
+    // straight into the scratch buffer instead of going through an encoder.
+    private static MessageDigest update(Scratch scratch, String input, Charset charset) {
+        byte[] buffer = scratch.text;
+        int length = input.length();
+        if (length <= buffer.length && copyAscii(input, buffer, length)) {
+            scratch.sha256.update(buffer, 0, length);
+        } else {
+            scratch.sha256.update(input.getBytes(charset));
+        }
+        return scratch.sha256;
+    }
+
+    private static boolean copyAscii(String input, byte[] buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            if (c >= 0x80) {
+                return false;
+            }
+            buffer[i] = (byte) c;
+        }
+        return true;
+    }
+
+    private static byte[] output(Scratch scratch, int length) {
+        return length <= scratch.text.length ? scratch.text : new byte[length];
+    }
+
+    // Hash_DRBG at 256-bit strength, reseeded from the system entropy
+    // source only when the DRBG itself calls for it
+    private static SecureRandom newDrbg() {
+        try {
+            return SecureRandom.getInstance("DRBG",
+                    DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, null));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("DRBG not available", e);
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
 }
@@ -0,0 +1,45 @@
+package com.rackleet.authserver.crypto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.nimbusds.jose.jwk.JWK;
+
+/**
+ * Keeps keys in process memory only. Every restart generates a new key set
+ * and invalidates all outstanding tokens - fine for development, not for
+ * anything with more than one node.
+ */
+@Component
+@ConditionalOnProperty(prefix = "authserver.keys", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemorySigningKeyStore implements SigningKeyStore {
+
+    private final Map<String, JWK> keys = new ConcurrentHashMap<>();
+
+    @Override
+    public List<JWK> loadAll() {
+        return new ArrayList<>(keys.values());
+    }
+
+    @Override
+    public synchronized List<JWK> loadOrInitialize(UnaryOperator<List<JWK>> missingKeys) {
+        missingKeys.apply(loadAll()).forEach(this::save);
+        return loadAll();
+    }
+
+    @Override
+    public void save(JWK key) {
+        keys.put(key.getKeyID(), key);
+    }
+
+    @Override
+    public void delete(String kid) {
+        keys.remove(kid);
+    }
+}
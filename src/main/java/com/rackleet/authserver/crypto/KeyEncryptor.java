@@ -0,0 +1,63 @@
+package com.rackleet.authserver.crypto;
+
+import java.text.ParseException;
+
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.PasswordBasedDecrypter;
+import com.nimbusds.jose.crypto.PasswordBasedEncrypter;
+
+/**
+ * Encrypts key material at rest with a configured passphrase.
+ *
+ * Output is a compact JWE using PBES2-HS512+A256KW / A256GCM (RFC 7518
+ * section 4.8): the passphrase goes through PBKDF2 with a random salt to
+ * wrap a fresh content key, and the JSON is sealed with AES-GCM. A wrong
+ * passphrase or a tampered ciphertext fails to decrypt.
+ */
+public class KeyEncryptor {
+
+    private static final int SALT_LENGTH = 16;
+
+    // PBKDF2-HMAC-SHA512 work factor. Only paid when keys are loaded or
+    // saved, never per token.
+    private static final int ITERATIONS = 210_000;
+
+    private final String passphrase;
+
+    public KeyEncryptor(String passphrase) {
+        if (passphrase == null || passphrase.isBlank()) {
+            throw new IllegalStateException(
+                    "authserver.keys.passphrase is required to store signing keys");
+        }
+        this.passphrase = passphrase;
+    }
+
+    public String encrypt(String json) {
+        try {
+            JWEHeader header = new JWEHeader.Builder(
+                    JWEAlgorithm.PBES2_HS512_A256KW, EncryptionMethod.A256GCM)
+                    .build();
+            JWEObject jwe = new JWEObject(header, new Payload(json));
+            jwe.encrypt(new PasswordBasedEncrypter(passphrase, SALT_LENGTH, ITERATIONS));
+            return jwe.serialize();
+        } catch (JOSEException e) {
+            throw new RuntimeException("Failed to encrypt signing key material", e);
+        }
+    }
+
+    public String decrypt(String compactJwe) {
+        try {
+            JWEObject jwe = JWEObject.parse(compactJwe);
+            jwe.decrypt(new PasswordBasedDecrypter(passphrase));
+            return jwe.getPayload().toString();
+        } catch (ParseException | JOSEException e) {
+            throw new IllegalStateException(
+                    "Failed to decrypt signing key material - wrong passphrase or corrupt data", e);
+        }
+    }
+}
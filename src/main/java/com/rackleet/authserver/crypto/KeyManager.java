@@ -1,7 +1,29 @@
 package com.rackleet.authserver.crypto;
 
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Signer;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
 import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -10,50 +32,162 @@ import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class KeyManager {
 
-    // All key pairs indexed by kid (Key ID).
+    /**
+     * Access-token signing algorithms a client can choose from.
+     * RS256 is the default. ES256 (P-256) and EdDSA (Ed25519) sign much
+     * faster and produce far shorter tokens.
+     */
+    public static final List<JWSAlgorithm> SUPPORTED_ALGORITHMS = List.of(
+            JWSAlgorithm.RS256,
+            JWSAlgorithm.ES256,
+            JWSAlgorithm.EdDSA);
+
+    // Where keys survive restarts - see authserver.keys.store
+    private final SigningKeyStore keyStore;
+
+    // All key pairs indexed by kid (Key ID), each with its ready-made
+    // signer and verifier.
     // ConcurrentHashMap for key rotation may add
     // keys while token signing and JWKS requests are reading.
-    private final Map<String, RSAKey> keys = new ConcurrentHashMap<>();
+    private final Map<String, ManagedKey> keys = new ConcurrentHashMap<>();
+
+    // Bumped whenever a key enters or leaves the map, so the JWKS
+    // document knows when to re-render
+    private final AtomicLong keySetVersion = new AtomicLong();
+
+    // The kid of the current signing key for each algorithm.
+    // New tokens are always signed with the key for the client's algorithm.
+    // Old keys stay in the map so existing tokens can still be verified.
+    // Immutable and replaced as a whole, so a rotation switches every
+    // algorithm at once and signers never see a half-updated map.
+    private volatile Map<JWSAlgorithm, String> currentKids = Map.of();
+
+    // Newest activation first; kid breaks ties so every node picks the
+    // same key when two nodes pre-generated a standby at the same time
+    private static final Comparator<ManagedKey> NEWEST_FIRST =
+            Comparator.comparing((ManagedKey k) -> activatesAt(k.key()))
+                    .thenComparing(k -> k.key().getKeyID())
+                    .reversed();
+
+    /**
+     * A key pair plus the Nimbus objects built from it.
+     * Signers and verifiers are thread-safe, so one instance per kid is
+     * shared by every request instead of being rebuilt per token.
+     *
+     * A key's nbf is when it becomes the signing key. Until then it's a
+     * standby key: published in the JWKS so resource servers already
+     * have it when the switch happens, but not used to sign.
+     */
+    private record ManagedKey(
+            JWK key, JWK publicKey, JWSAlgorithm algorithm, JWSSigner signer, JWSVerifier verifier) {
+    }
 
-    // The kid of the current signing key.
-    // New tokens are always signed with this key.
-    // Old keys stay in the map so existing tokens can still be verified
-    private String currentKid;
-    
     /**
-     * Generates the initial signing key on application startup.
-     * In production, we would load the keys from a database, file, or KMS.
-     * For this project, generating on startup is fine but means all tokens become unverifiable when the server restarts.
+     * Loads the key set from the key store on application startup.
+     * Only the first boot against an empty store generates keys; every
+     * later boot (and every other node sharing the store) reuses them, so
+     * outstanding tokens stay verifiable across restarts.
      */
     @PostConstruct
-    public void init() {
-        generateNewKeyPair();
-        log.info("RSA signing key generated with kid '{}'");
+    public synchronized void init() {
+        List<JWK> stored = keyStore.loadOrInitialize(this::generateMissingKeys);
+        stored.forEach(this::addStoredKey);
+        selectCurrentKeys(Instant.now());
+
+        log.info("Loaded {} signing keys from {}", keys.size(), keyStore.getClass().getSimpleName());
+    }
+
+    /**
+     * One rotation pass, run periodically by KeyRotationScheduler:
+     * <ol>
+     *   <li>picks up keys other nodes added to (or retired from) the store</li>
+     *   <li>pre-generates a standby key once the newest key for an
+     *       algorithm is within standbyLead of its rotation date</li>
+     *   <li>switches to any standby key whose nbf has passed</li>
+     *   <li>retires keys that were superseded more than retireAfter ago -
+     *       no token they signed can still be valid</li>
+     * </ol>
+     */
+    public synchronized void rotate(Duration rotationInterval, Duration standbyLead, Duration retireAfter) {
+        Instant now = Instant.now();
+        syncWithStore();
+
+        for (JWSAlgorithm algorithm : SUPPORTED_ALGORITHMS) {
+            List<ManagedKey> newestFirst = keysFor(algorithm);
+            Instant nextRotation = newestFirst.isEmpty()
+                    ? now
+                    : activatesAt(newestFirst.get(0).key()).plus(rotationInterval);
+
+            // A standby already exists if the newest key isn't active yet,
+            // in which case nextRotation is still well in the future
+            if (!now.isBefore(nextRotation.minus(standbyLead))) {
+                Instant activatesAt = max(nextRotation, now.plus(standbyLead));
+                JWK standby = generateKey(algorithm, activatesAt);
+                keyStore.save(standby);
+                addStoredKey(standby);
+                log.info("{} standby key '{}' generated, active from {}",
+                        algorithm, standby.getKeyID(), activatesAt);
+            }
+        }
+
+        selectCurrentKeys(now);
+        retireSupersededKeys(now, retireAfter);
     }
 
+
     /**
-     * Returns the current signing key (with private key) for creating JWTs
-     * Only the token service should call this
+     * Signs the claims with the current signing key for the algorithm.
+     * The header carries the key's kid so verifiers know which key to use.
      */
-    public RSAKey getSigningKey() {
-        return keys.get(currentKid);
+    public SignedJWT sign(JWTClaimsSet claims, JWSAlgorithm algorithm) throws JOSEException {
+        // Read once - rotation may swap the current kid while we're signing
+        String kid = currentKids.get(algorithm);
+        ManagedKey signingKey = kid != null ? keys.get(kid) : null;
+        if (signingKey == null) {
+            throw new JOSEException("No signing key for algorithm " + algorithm);
+        }
+
+        JWSHeader header = new JWSHeader.Builder(algorithm)
+                .keyID(kid) // kid — tells verifiers which key to use
+                .type(JOSEObjectType.JWT)
+                .build();
+
+        SignedJWT signedJWT = new SignedJWT(header, claims);
+        signedJWT.sign(signingKey.signer());
+        return signedJWT;
     }
 
     /**
-     * Returns a specific key by kid for signature verification
-     * Resource servers send the kid from the JWT header to look up
-     * the correct public key
+     * Verifies a JWT's signature against the key named by its kid header.
+     * Returns false if the kid is unknown (e.g. the key was retired) or the
+     * header's alg isn't the one the key was generated for.
      */
-    public RSAKey getKeyById(String kid) {
-        return keys.get(kid);
+    public boolean verify(SignedJWT jwt) throws JOSEException {
+        String kid = jwt.getHeader().getKeyID();
+        ManagedKey managed = kid != null ? keys.get(kid) : null;
+        if (managed == null || !managed.algorithm().equals(jwt.getHeader().getAlgorithm())) {
+            return false;
+        }
+        return jwt.verify(managed.verifier());
     }
 
     /**
@@ -61,22 +195,190 @@ public class KeyManager {
      * Private key material is stripped - only public keys are exposed
      * This is what resource servers fetch to verify token signatures
      */
-    public Map<String, RSAKey> getAllPublicKeys() {
-        Map<String, RSAKey> publicKeys = new ConcurrentHashMap<>();
-        for (Map.Entry<String, RSAKey> entry: keys.entrySet()) {
-            // .toPublicJWK() strips the private key, leaving only the public components
-            // (modulus n and exponent e)
-            publicKeys.put(entry.getKey(), entry.getValue().toPublicJWK());
+    public Map<String, JWK> getAllPublicKeys() {
+        Map<String, JWK> publicKeys = new ConcurrentHashMap<>();
+        for (Map.Entry<String, ManagedKey> entry: keys.entrySet()) {
+            // The public half is stripped once when the key is added
+            publicKeys.put(entry.getKey(), entry.getValue().publicKey());
         }
         return publicKeys;
     }
 
     /**
-     * Generates a new RSA key pair and makes it the current signing key
+     * Generates a new key pair, persists it and makes it the current
+     * signing key for its algorithm immediately, skipping the standby
+     * period. Scheduled rotation goes through rotate() instead.
      * The old key stays in the map for verification of existing tokens
-     * Called at startup and during key rotation
      */
-    public String generateNewKeyPair() {
+    public synchronized String generateNewKeyPair(JWSAlgorithm algorithm) {
+        JWK key = generateKey(algorithm, Instant.now());
+        keyStore.save(key);
+        addStoredKey(key);
+        selectCurrentKeys(Instant.now());
+        return key.getKeyID();
+    }
+
+    /**
+     * Removes a key along with its cached signer and verifier.
+     * Tokens signed with it stop verifying. A current signing key
+     * can't be retired.
+     */
+    public synchronized void retireKey(String kid) {
+        if (currentKids.containsValue(kid)) {
+            throw new IllegalStateException("Cannot retire a current signing key: " + kid);
+        }
+        keyStore.delete(kid);
+        if (keys.remove(kid) != null) {
+            keySetVersion.incrementAndGet();
+            log.info("Signing key '{}' retired", kid);
+        }
+    }
+
+    /**
+     * Changes whenever a key is added or retired. Lets callers cache
+     * anything derived from the key set, such as the rendered JWKS.
+     */
+    public long getKeySetVersion() {
+        return keySetVersion.get();
+    }
+
+    /**
+     * Returns the current signing key's kid for an algorithm.
+     */
+    public String getCurrentKid(JWSAlgorithm algorithm) {
+        return currentKids.get(algorithm);
+    }
+
+    // Picks up keys added by other nodes and drops keys they retired
+    private void syncWithStore() {
+        Set<String> storedKids = new HashSet<>();
+        for (JWK key : keyStore.loadAll()) {
+            storedKids.add(key.getKeyID());
+            if (!keys.containsKey(key.getKeyID())) {
+                addStoredKey(key);
+                log.info("Loaded signing key '{}' added by another node", key.getKeyID());
+            }
+        }
+        if (keys.keySet().removeIf(kid -> !storedKids.contains(kid) && !currentKids.containsValue(kid))) {
+            keySetVersion.incrementAndGet();
+        }
+    }
+
+    // Makes the newest already-active key current for each algorithm,
+    // publishing all the choices in one volatile write
+    private void selectCurrentKeys(Instant now) {
+        Map<JWSAlgorithm, String> selected = new HashMap<>();
+        for (JWSAlgorithm algorithm : SUPPORTED_ALGORITHMS) {
+            keysFor(algorithm).stream()
+                    .filter(k -> !activatesAt(k.key()).isAfter(now))
+                    .findFirst()
+                    .ifPresent(k -> selected.put(algorithm, k.key().getKeyID()));
+        }
+
+        Map<JWSAlgorithm, String> previous = currentKids;
+        currentKids = Map.copyOf(selected);
+        selected.forEach((algorithm, kid) -> {
+            String old = previous.get(algorithm);
+            if (old != null && !old.equals(kid)) {
+                log.info("{} signing key switched from '{}' to '{}'", algorithm, old, kid);
+            }
+        });
+    }
+
+    // A key is superseded when the next newer key activates. Once
+    // retireAfter has passed since then, every token it signed has expired.
+    private void retireSupersededKeys(Instant now, Duration retireAfter) {
+        for (JWSAlgorithm algorithm : SUPPORTED_ALGORITHMS) {
+            List<ManagedKey> active = keysFor(algorithm).stream()
+                    .filter(k -> !activatesAt(k.key()).isAfter(now))
+                    .toList();
+
+            // active.get(0) is current; each older key's successor is the one before it
+            for (int i = 1; i < active.size(); i++) {
+                Instant supersededAt = activatesAt(active.get(i - 1).key());
+                if (!now.isBefore(supersededAt.plus(retireAfter))) {
+                    retireKey(active.get(i).key().getKeyID());
+                }
+            }
+        }
+    }
+
+    private List<ManagedKey> keysFor(JWSAlgorithm algorithm) {
+        return keys.values().stream()
+                .filter(k -> k.algorithm().equals(algorithm))
+                .sorted(NEWEST_FIRST)
+                .toList();
+    }
+
+    private void addStoredKey(JWK key) {
+        try {
+            addKey(key, JWSAlgorithm.parse(key.getAlgorithm().getName()));
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Unusable stored signing key '" + key.getKeyID() + "'", e);
+        }
+    }
+
+    // A first key for each algorithm with no active key in the store -
+    // all of them on first boot, or one added since. Runs inside the
+    // store's lock, so concurrent boots don't both generate one.
+    private List<JWK> generateMissingKeys(List<JWK> stored) {
+        Instant now = Instant.now();
+        Set<String> covered = new HashSet<>();
+        for (JWK key : stored) {
+            if (key.getAlgorithm() != null && !activatesAt(key).isAfter(now)) {
+                covered.add(key.getAlgorithm().getName());
+            }
+        }
+
+        List<JWK> missing = new ArrayList<>();
+        for (JWSAlgorithm algorithm : SUPPORTED_ALGORITHMS) {
+            if (!covered.contains(algorithm.getName())) {
+                JWK key = generateKey(algorithm, now);
+                missing.add(key);
+                log.info("{} signing key generated with kid '{}'", algorithm, key.getKeyID());
+            }
+        }
+        return missing;
+    }
+
+    private JWK generateKey(JWSAlgorithm algorithm, Instant activatesAt) {
+        // Generate a unique kid for resource server identification
+        // Format: "key-{uuid}" for readability
+        String kid = "key-" + UUID.randomUUID();
+
+        // nbf is when the key takes over signing. Every node that loads the
+        // key set derives the same current and standby keys from it.
+        Date issuedAt = new Date();
+        Date notBefore = Date.from(activatesAt);
+
+        try {
+            if (JWSAlgorithm.RS256.equals(algorithm)) {
+                return generateRsaKey(kid, issuedAt, notBefore);
+            } else if (JWSAlgorithm.ES256.equals(algorithm)) {
+                // P-256 is the curve ES256 is defined over
+                return new ECKeyGenerator(Curve.P_256)
+                        .keyID(kid)
+                        .keyUse(KeyUse.SIGNATURE)
+                        .algorithm(JWSAlgorithm.ES256)
+                        .issueTime(issuedAt)
+                        .notBeforeTime(notBefore)
+                        .generate();
+            } else if (JWSAlgorithm.EdDSA.equals(algorithm)) {
+                return new OctetKeyPairGenerator(Curve.Ed25519)
+                        .keyID(kid)
+                        .keyUse(KeyUse.SIGNATURE)
+                        .algorithm(JWSAlgorithm.EdDSA)
+                        .issueTime(issuedAt)
+                        .notBeforeTime(notBefore)
+                        .generate();
+            }
+        } catch (JOSEException e) {
+            throw new RuntimeException("Failed to generate " + algorithm + " key", e);
+        }
+        throw new IllegalArgumentException("Unsupported signing algorithm: " + algorithm);
+    }
+
+    private RSAKey generateRsaKey(String kid, Date issuedAt, Date notBefore) {
         try {
             KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
 
@@ -85,35 +387,56 @@ public class KeyManager {
 
             KeyPair keyPair = generator.generateKeyPair();
 
-            // Generate a unique kid for resource server identification
-            // Format: "key-{uuid}" for readability
-            String kid = "key-" + UUID.randomUUID();
-
             // Build the Nimbus RSAKey with both public and private components
             // keyUse(KeyUse.SIGNATURE) marks it for signing, not encryption
             // algorithm(JWSAlgorithm.RS256) declares the intended algorithm
-            RSAKey rsaKey = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
+            return new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
                 .privateKey((RSAPrivateKey) keyPair.getPrivate())
                 .keyID(kid)
-                .keyUse(com.nimbusds.jose.jwk.KeyUse.SIGNATURE)
-                .algorithm(com.nimbusds.jose.JWSAlgorithm.RS256)
+                .keyUse(KeyUse.SIGNATURE)
+                .algorithm(JWSAlgorithm.RS256)
+                .issueTime(issuedAt)
+                .notBeforeTime(notBefore)
                 .build();
-
-            keys.put(kid, rsaKey);
-            currentKid = kid;
-
-            return kid;
         } catch (NoSuchAlgorithmException e) {
             // RSA is guaranteed to be available in every JVM
             throw new RuntimeException("RSA not available", e);
         }
     }
 
-    /**
-     * Returns the current signing key's kid.
-     * Used by the token service to set the kid header in JWTs
-     */
-    public String getCurrentKid() {
-        return currentKid;
+    // Builds the signer and verifier once, when the key enters the map
+    private void addKey(JWK key, JWSAlgorithm algorithm) throws JOSEException {
+        JWK publicKey = key.toPublicJWK();
+        JWSSigner signer;
+        JWSVerifier verifier;
+
+        if (key instanceof RSAKey rsaKey) {
+            signer = new RSASSASigner(rsaKey);
+            verifier = new RSASSAVerifier((RSAKey) publicKey);
+        } else if (key instanceof ECKey ecKey) {
+            signer = new ECDSASigner(ecKey);
+            verifier = new ECDSAVerifier((ECKey) publicKey);
+        } else if (key instanceof OctetKeyPair okp) {
+            signer = new Ed25519Signer(okp);
+            verifier = new Ed25519Verifier((OctetKeyPair) publicKey);
+        } else {
+            throw new JOSEException("Unsupported key type: " + key.getKeyType());
+        }
+
+        keys.put(key.getKeyID(), new ManagedKey(key, publicKey, algorithm, signer, verifier));
+        keySetVersion.incrementAndGet();
+    }
+
+    // Keys stored before rotation existed have no nbf - they were active
+    // from the moment they were issued
+    private static Instant activatesAt(JWK key) {
+        if (key.getNotBeforeTime() != null) {
+            return key.getNotBeforeTime().toInstant();
+        }
+        return key.getIssueTime() != null ? key.getIssueTime().toInstant() : Instant.EPOCH;
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
     }
 }
@@ -0,0 +1,53 @@
+package com.rackleet.authserver.crypto;
+
+import java.time.Duration;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.repository.OAuthClientRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives KeyManager's rotation pass on a fixed schedule.
+ *
+ * Each key signs for authserver.keys.rotation-interval. Its successor is
+ * generated standby-lead ahead of time and published in the JWKS before
+ * it signs anything, so resource servers never see a kid they don't know.
+ * Superseded keys are dropped once no token they signed can still be valid.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KeyRotationScheduler {
+
+    // Allowance for clock drift between this server and resource servers
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(5);
+
+    private final KeyManager keyManager;
+    private final OAuthClientRepository clientRepository;
+    private final AuthServerProperties properties;
+
+    // First run right after startup catches up on rotations missed while down
+    @Scheduled(fixedDelayString = "${authserver.keys.rotation-check-interval:1h}")
+    public void rotate() {
+        AuthServerProperties.Keys config = properties.getKeys();
+        try {
+            keyManager.rotate(config.getRotationInterval(), config.getStandbyLead(), retireAfter(config));
+        } catch (RuntimeException e) {
+            // Keep the current keys and try again next run
+            log.error("Signing key rotation failed", e);
+        }
+    }
+
+    // A superseded key must outlive every token it signed. Other nodes may
+    // sign with it for up to one check interval after we switch away.
+    private Duration retireAfter(AuthServerProperties.Keys config) {
+        Integer maxTtlSeconds = clientRepository.findMaxAccessTokenTtlSeconds();
+        Duration maxTtl = Duration.ofSeconds(maxTtlSeconds != null ? maxTtlSeconds : 0);
+        return maxTtl.plus(config.getRotationCheckInterval()).plus(CLOCK_SKEW);
+    }
+}
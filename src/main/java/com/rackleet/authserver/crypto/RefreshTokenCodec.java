@@ -0,0 +1,184 @@
+package com.rackleet.authserver.crypto;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.stereotype.Component;
+
+import com.rackleet.authserver.config.AuthServerProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Refresh token wire format:
+ *
+ *   "rt_" + base64url( family id (8) | secret (32) | tag (16) )
+ *
+ * The tag is HMAC-SHA256 over the id and secret under a server key,
+ * truncated to 128 bits. Only SHA-256 of the secret is stored (as the
+ * family's token_hash), so the database still never sees a usable token.
+ *
+ * The prefix tells a refresh token from a JWT without parsing either, and
+ * the tag lets anything this server didn't issue - scanned, truncated or
+ * made up - be turned away with one HMAC, before it costs a digest, a
+ * cache probe or a query.
+ *
+ * Tokens issued before this format are plain 43-character random strings
+ * whose whole text was hashed. They are still accepted until
+ * authserver.refresh-tokens.accept-legacy-until, and counted in
+ * refresh_tokens_legacy; the first rotation replaces one with an rt_
+ * token.
+ */
+@Component
+public class RefreshTokenCodec {
+
+    private static final String PREFIX = "rt_";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int ID_LENGTH = Long.BYTES;
+    private static final int SECRET_LENGTH = 32;
+    private static final int TAG_LENGTH = 16;
+    private static final int PAYLOAD_LENGTH = ID_LENGTH + SECRET_LENGTH + TAG_LENGTH;
+    private static final int TOKEN_LENGTH = PREFIX.length() + (PAYLOAD_LENGTH * 4 + 2) / 3;
+
+    // What generateRandomToken produced: 32 bytes, unpadded base64url
+    private static final int LEGACY_TOKEN_LENGTH = 43;
+
+    private static final int MIN_KEY_LENGTH = 32;
+
+    /**
+     * A presented refresh token that passed the format checks.
+     *
+     * @param familyId  the family it names; null for a legacy token, which
+     *                  can only be found by its hash
+     * @param tokenHash what the family's token_hash holds while this token
+     *                  is current
+     */
+    public record Parsed(Long familyId, byte[] tokenHash) {
+    }
+
+    private final ThreadLocal<Mac> macs;
+    private final Instant acceptLegacyUntil;
+    private final Counter rejected;
+    private final Counter legacy;
+
+    public RefreshTokenCodec(AuthServerProperties properties, MeterRegistry meterRegistry) {
+        AuthServerProperties.RefreshTokens config = properties.getRefreshTokens();
+        SecretKeySpec key = new SecretKeySpec(macKey(config.getMacKey()), MAC_ALGORITHM);
+        // Mac isn't thread-safe, and getInstance + init on every call
+        // would cost more than the MAC itself
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException("HmacSHA256 not available", e);
+            }
+        });
+        this.acceptLegacyUntil = config.getAcceptLegacyUntil();
+        this.rejected = meterRegistry.counter("refresh_tokens_rejected");
+        // Legacy tokens let through to a lookup by hash - once this stays
+        // flat, nothing depends on the cutoff any more
+        this.legacy = meterRegistry.counter("refresh_tokens_legacy");
+    }
+
+    /**
+     * A fresh secret for a new or rotated token. Store SHA-256 of it as the
+     * token hash, then encode it once the family id is known.
+     */
+    public byte[] newSecret() {
+        return HashUtils.randomBytes(SECRET_LENGTH);
+    }
+
+    public String encode(long familyId, byte[] secret) {
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .putLong(familyId)
+                .put(secret)
+                .put(tag(familyId, secret), 0, TAG_LENGTH)
+                .array();
+        return PREFIX + HashUtils.base64Url(payload);
+    }
+
+    /**
+     * True if the token claims to be a refresh token in the current format.
+     * A prefix check - says nothing about whether it is genuine.
+     */
+    public boolean isRefreshToken(String token) {
+        return token.startsWith(PREFIX);
+    }
+
+    /**
+     * Checks a presented token without touching the database. Null means
+     * no such token can exist: malformed, forged, or a legacy token past
+     * the cutoff.
+     */
+    public Parsed parse(String token) {
+        if (token.length() == TOKEN_LENGTH && isRefreshToken(token)) {
+            return parseCurrent(token);
+        }
+        if (token.length() == LEGACY_TOKEN_LENGTH && acceptsLegacy()) {
+            legacy.increment();
+            return new Parsed(null, HashUtils.sha256(token));
+        }
+        rejected.increment();
+        return null;
+    }
+
+    // ── Internals ───────────────────────────────────────────────
+
+    private boolean acceptsLegacy() {
+        return acceptLegacyUntil != null && Instant.now().isBefore(acceptLegacyUntil);
+    }
+
+    private Parsed parseCurrent(String token) {
+        byte[] payload;
+        try {
+            payload = Base64.getUrlDecoder().decode(token.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            rejected.increment();
+            return null;
+        }
+
+        long familyId = ByteBuffer.wrap(payload).getLong();
+        byte[] secret = Arrays.copyOfRange(payload, ID_LENGTH, ID_LENGTH + SECRET_LENGTH);
+        byte[] expected = Arrays.copyOf(tag(familyId, secret), TAG_LENGTH);
+        byte[] presented = Arrays.copyOfRange(payload, ID_LENGTH + SECRET_LENGTH, PAYLOAD_LENGTH);
+
+        // Constant time, so the tag can't be guessed byte by byte
+        if (!MessageDigest.isEqual(expected, presented)) {
+            rejected.increment();
+            return null;
+        }
+        return new Parsed(familyId, HashUtils.sha256(secret));
+    }
+
+    private byte[] tag(long familyId, byte[] secret) {
+        Mac mac = macs.get();
+        mac.update(ByteBuffer.allocate(ID_LENGTH).putLong(familyId).array());
+        return mac.doFinal(secret);
+    }
+
+    // Required: a per-process random key would invalidate every refresh
+    // token on restart and on every other node
+    private static byte[] macKey(String configured) {
+        if (configured == null || configured.isBlank()) {
+            throw new IllegalStateException("authserver.refresh-tokens.mac-key is required - "
+                    + "at least " + MIN_KEY_LENGTH + " random bytes, base64, the same on every node");
+        }
+        byte[] key = Base64.getDecoder().decode(configured.trim());
+        if (key.length < MIN_KEY_LENGTH) {
+            throw new IllegalStateException(
+                    "authserver.refresh-tokens.mac-key must be at least " + MIN_KEY_LENGTH + " bytes");
+        }
+        return key;
+    }
+}
@@ -0,0 +1,34 @@
+package com.rackleet.authserver.crypto;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import com.nimbusds.jose.jwk.JWK;
+
+/**
+ * Where KeyManager keeps its signing keys (private material included).
+ *
+ * The implementation is chosen with authserver.keys.store:
+ * memory (default - keys live and die with the process),
+ * file (one encrypted file, single node) or
+ * database (encrypted rows in signing_keys, shared by every node).
+ */
+public interface SigningKeyStore {
+
+    /**
+     * Returns every stored key.
+     */
+    List<JWK> loadAll();
+
+    /**
+     * Loads the stored keys, saves whatever missingKeys generates for
+     * them (the initial set for an empty store, or a first key for an
+     * algorithm added since) and returns the result. Stores shared between
+     * nodes make this atomic, so concurrent boots agree on one key set.
+     */
+    List<JWK> loadOrInitialize(UnaryOperator<List<JWK>> missingKeys);
+
+    void save(JWK key);
+
+    void delete(String kid);
+}
@@ -0,0 +1,17 @@
+package com.rackleet.authserver.dto.request;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Revokes everything matched by any of the fields, among the tokens
+ * issued to the calling client. At least one is required.
+ */
+@Data
+public class BulkRevocationRequest {
+
+    private List<String> tokens; // access tokens (JWTs) and/or refresh tokens
+    private Long userId;         // every refresh token of this user
+    private String clientId;     // every refresh token; must be the caller's own id
+}
@@ -28,5 +28,7 @@ public class ClientRegistrationRequest {
     private Integer accessTokenTtlSeconds;
 
     private Integer refreshTokenTtlSeconds;
+
+    private String accessTokenSigningAlg; // RS256 (default), ES256 or EdDSA
     
 }
@@ -0,0 +1,12 @@
+package com.rackleet.authserver.dto.response;
+
+import lombok.Data;
+
+@Data
+public class BulkRevocationResponse {
+
+    // Newly revoked by this request - tokens that were already revoked
+    // or don't exist are not counted
+    private int accessTokensRevoked;
+    private int refreshTokensRevoked;
+}
@@ -19,6 +19,7 @@ public class ClientInfoResponse {
     private boolean requirePkce;
     private int accessTokenTtlSeconds;
     private int refreshTokenTtlSeconds;
+    private String accessTokenSigningAlg;
     private Instant createdAt;
     private Instant updatedAt;
 }
@@ -19,5 +19,6 @@ public class ClientRegistrationResponse {
     private boolean requirePkce;
     private int accessTokenTtlSeconds;
     private int refreshTokenTtlSeconds;
+    private String accessTokenSigningAlg;
     private Instant createdAt;
 }
@@ -17,8 +17,9 @@ public class AuthorizationCode {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "code_hash", nullable = false, length = 64)
-    private String codeHash;
+    // Raw SHA-256 of the code, 32 bytes
+    @Column(name = "code_hash", nullable = false, length = 32)
+    private byte[] codeHash;
 
     @Column(name = "client_id", nullable = false, length = 36)
     private String clientId;
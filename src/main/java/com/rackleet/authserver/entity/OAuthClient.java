@@ -62,6 +62,10 @@ public class OAuthClient {
     @Column(name = "refresh_token_ttl_seconds", nullable = false)
     private int refreshTokenTtlSeconds;
 
+    // JWS alg for this client's access tokens: RS256, ES256 or EdDSA
+    @Column(name = "access_token_signing_alg", nullable = false, length = 10)
+    private String accessTokenSigningAlg = "RS256";
+
     @Column(name = "is_active", nullable = false)
     private boolean active = true;
 
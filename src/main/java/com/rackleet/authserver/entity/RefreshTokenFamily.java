@@ -5,21 +5,34 @@ import lombok.*;
 
 import java.time.Instant;
 
+/**
+ * One row per refresh token family - the chain of tokens that rotation
+ * produces from a single grant. Rotation rewrites the row in place, so a
+ * long-lived session costs one row however often it refreshes, and
+ * revoking the whole family is a single-row write.
+ */
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_token_families")
 @Getter
 @Setter
 @NoArgsConstructor
-@ToString(exclude = {"tokenHash", "parentTokenHash"})
+@ToString(exclude = {"tokenHash", "previousTokenHash"})
 @EqualsAndHashCode(of = {"id"})
-public class RefreshToken {
-    
+public class RefreshTokenFamily {
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    
-    @Column(name = "token_hash", nullable = false, length = 64)
-    private String tokenHash;
+
+    // Raw SHA-256 of the one token in the family that can still be used -
+    // of its secret part for an rt_ token, of the whole text for a legacy one
+    @Column(name = "token_hash", nullable = false, length = 32)
+    private byte[] tokenHash;
+
+    // Hash of the token it replaced. Presenting that one again means
+    // someone else holds a copy - reuse detection revokes the family.
+    @Column(name = "previous_token_hash", length = 32)
+    private byte[] previousTokenHash;
 
     @Column(name = "client_id", nullable = false, length = 36)
     private String clientId;
@@ -30,6 +43,7 @@ public class RefreshToken {
     @Column(columnDefinition = "TEXT")
     private String scope;
 
+    // Expiry of the current token; each rotation pushes it out
     @Column(name = "expires_at", nullable = false)
     private Instant expiresAt;
 
@@ -39,12 +53,6 @@ public class RefreshToken {
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
 
-    // Links this token to its family for reuse detection.
-    // First token in the chain will have null value.
-    // All rotated tokens point to the original parent.
-    @Column(name = "parent_token_hash", length = 64)
-    private String parentTokenHash;
-
     @PrePersist
     protected void onCreate(){
         createdAt = Instant.now();
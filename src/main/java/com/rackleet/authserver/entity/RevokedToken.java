@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.Instant;
+import java.util.UUID;
 
 @Entity
 @Table(name = "revoked_tokens")
@@ -19,9 +20,10 @@ public class RevokedToken {
     private Long id;
 
     // The jti claim from the JWT - a UUID that uniquely
-    // identifies each access token issued
-    @Column(nullable = false, unique = true, length = 64)
-    private String jti;
+    // identifies each access token issued. Unique together with
+    // expires_at, the partition key (see V12)
+    @Column(nullable = false)
+    private UUID jti;
 
     // Stored for cleaning up after the jwt would have expired anyway
     @Column(name = "expires_at", nullable = false)
@@ -0,0 +1,48 @@
+package com.rackleet.authserver.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Entity
+@Table(name = "signing_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString(exclude = {"encryptedJwk"}) // never log key material, even encrypted
+@EqualsAndHashCode(of = {"id"})
+public class SigningKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String kid;
+
+    @Column(nullable = false, length = 10)
+    private String algorithm;
+
+    // Full JWK (private key included) as a passphrase-encrypted compact JWE
+    @Column(name = "encrypted_jwk", nullable = false, columnDefinition = "TEXT")
+    private String encryptedJwk;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = Instant.now();
+    }
+}
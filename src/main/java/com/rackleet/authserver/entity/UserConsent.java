@@ -1,7 +1,6 @@
 package com.rackleet.authserver.entity;
 
 import java.time.Instant;
-import java.util.Set;
 
 import jakarta.persistence.*;
 import lombok.*;
@@ -25,8 +24,8 @@ public class UserConsent {
     @Column(name = "client_id", nullable = false, length = 36)
     private String clientId;
 
-    // Space-delimited scopes the user has approved.
-    // Compared as a set - order doesnt matter.
+    // Space-delimited scopes the user has approved, in canonical
+    // ScopeRegistry order. Compared as a ScopeSet by ConsentService.
     @Column(name = "granted_scopes", nullable = false, columnDefinition = "TEXT")
     private String grantedScopes;
 
@@ -46,20 +45,4 @@ public class UserConsent {
     protected void onUpdate() {
         updatedAt = Instant.now();
     }
-
-    /**
-     * Checks if this consent covers all the requested scopes
-     * Returns true if every requested scope is in the granted set
-     * In the entity to keep it close to the data and make it reusable.
-     * Its a pure function on the entitys own state, no dependencies
-     */
-    public boolean coversScopes(String requestedScopes) {
-        if (requestedScopes == null || requestedScopes.isBlank()) {
-             return true;
-        }
-
-        Set<String> granted = Set.of(grantedScopes.split(" "));
-        Set<String> requested = Set.of(requestedScopes.split(" "));
-        return granted.containsAll(requested);
-    }
 }
@@ -1,13 +1,42 @@
 package com.rackleet.authserver.repository;
 
+import java.time.Instant;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.rackleet.authserver.entity.AuthorizationCode;
 
 public interface AuthorizationCodeRepository extends JpaRepository<AuthorizationCode, Long> {
 
-    Optional<AuthorizationCode> findByCodeHash(String codeHash);
-    
+    Optional<AuthorizationCode> findByCodeHash(byte[] codeHash);
+
+    // Redemption as one compare-and-set: every check the token endpoint
+    // makes is in the WHERE clause, so the code is marked used only when
+    // the exchange is valid, and only one concurrent caller gets the row.
+    // codeChallenge is S256(code_verifier), or null when none was sent.
+    @Query(value = "UPDATE authorization_codes SET is_used = true "
+            + "WHERE code_hash = :codeHash AND is_used = false AND expires_at > :now "
+            + "AND client_id = :clientId AND redirect_uri = :redirectUri "
+            + "AND (code_challenge IS NULL "
+            + "OR (code_challenge_method = 'S256' AND code_challenge = :codeChallenge)) "
+            + "RETURNING *", nativeQuery = true)
+    Optional<AuthorizationCode> redeem(@Param("codeHash") byte[] codeHash,
+                                       @Param("clientId") String clientId,
+                                       @Param("redirectUri") String redirectUri,
+                                       @Param("codeChallenge") String codeChallenge,
+                                       @Param("now") Instant now);
+
+    // Single-use guard for encrypted codes, which have no row here: the
+    // first redemption inserts the code's id, any later one conflicts.
+    // 0 means the code was already redeemed. A concurrent caller waits on
+    // the first one's insert and conflicts once it commits.
+    @Modifying
+    @Query(value = "INSERT INTO redeemed_codes (code_id, expires_at) VALUES (:codeId, :expiresAt) "
+            + "ON CONFLICT (code_id, expires_at) DO NOTHING", nativeQuery = true)
+    int markRedeemed(@Param("codeId") byte[] codeId, @Param("expiresAt") Instant expiresAt);
+
 }
@@ -3,6 +3,7 @@ package com.rackleet.authserver.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.rackleet.authserver.entity.OAuthClient;
 
@@ -11,5 +12,8 @@ public interface OAuthClientRepository extends JpaRepository<OAuthClient, Long>
     Optional<OAuthClient> findByClientId(String clientId);
 
     boolean existsByClientId(String clientId);
-    
+
+    // Longest lifetime any access token can have - null with no clients
+    @Query("SELECT MAX(c.accessTokenTtlSeconds) FROM OAuthClient c")
+    Integer findMaxAccessTokenTtlSeconds();
 }
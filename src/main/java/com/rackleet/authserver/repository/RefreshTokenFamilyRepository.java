@@ -0,0 +1,95 @@
+package com.rackleet.authserver.repository;
+
+import com.rackleet.authserver.entity.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, Long> {
+
+    Optional<RefreshTokenFamily> findByTokenHash(byte[] tokenHash);
+
+    // Batch introspection - one query for every token in the batch
+    List<RefreshTokenFamily> findByTokenHashIn(Collection<byte[]> tokenHashes);
+
+    // Used for reuse detection.
+    Optional<RefreshTokenFamily> findByPreviousTokenHash(byte[] previousTokenHash);
+
+    // Rotation as one compare-and-set: only a live token issued to this
+    // client is replaced, and the row lock makes concurrent callers
+    // queue behind the first, so exactly one of them gets the row back.
+    // Empty means the token is missing, revoked, expired, someone else's
+    // or already rotated away.
+    @Query(value = "UPDATE refresh_token_families "
+            + "SET previous_token_hash = token_hash, token_hash = :newTokenHash, expires_at = :newExpiresAt "
+            + "WHERE token_hash = :tokenHash AND client_id = :clientId "
+            + "AND is_revoked = false AND expires_at > :now "
+            + "RETURNING *", nativeQuery = true)
+    Optional<RefreshTokenFamily> rotate(@Param("tokenHash") byte[] tokenHash,
+                                        @Param("clientId") String clientId,
+                                        @Param("newTokenHash") byte[] newTokenHash,
+                                        @Param("newExpiresAt") Instant newExpiresAt,
+                                        @Param("now") Instant now);
+
+    // Same compare-and-set for an rt_ token, which names its family:
+    // found by primary key, and the hash must still be the current one
+    @Query(value = "UPDATE refresh_token_families "
+            + "SET previous_token_hash = token_hash, token_hash = :newTokenHash, expires_at = :newExpiresAt "
+            + "WHERE id = :id AND token_hash = :tokenHash AND client_id = :clientId "
+            + "AND is_revoked = false AND expires_at > :now "
+            + "RETURNING *", nativeQuery = true)
+    Optional<RefreshTokenFamily> rotate(@Param("id") Long id,
+                                        @Param("tokenHash") byte[] tokenHash,
+                                        @Param("clientId") String clientId,
+                                        @Param("newTokenHash") byte[] newTokenHash,
+                                        @Param("newExpiresAt") Instant newExpiresAt,
+                                        @Param("now") Instant now);
+
+    // Revoke entire family - a single row, however long the chain.
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.isRevoked = true WHERE f.id = :id AND f.isRevoked = false")
+    int revokeFamily(@Param("id") Long id);
+
+    // Bulk revocation - one statement however many rows match.
+    // Each returns how many families it revoked.
+
+    @Modifying
+    @Query(value = "UPDATE refresh_token_families SET is_revoked = true "
+            + "WHERE user_id = :userId AND client_id = :clientId AND is_revoked = false", nativeQuery = true)
+    int revokeAllForUserAndClient(@Param("userId") Long userId, @Param("clientId") String clientId);
+
+    @Modifying
+    @Query(value = "UPDATE refresh_token_families SET is_revoked = true "
+            + "WHERE user_id = :userId AND is_revoked = false", nativeQuery = true)
+    int revokeAllForUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE refresh_token_families SET is_revoked = true "
+            + "WHERE client_id = :clientId AND is_revoked = false", nativeQuery = true)
+    int revokeAllForClient(@Param("clientId") String clientId);
+
+    @Modifying
+    @Query(value = "UPDATE refresh_token_families SET is_revoked = true "
+            + "WHERE token_hash IN (:tokenHashes) AND client_id = :clientId AND is_revoked = false",
+            nativeQuery = true)
+    int revokeAllByTokenHashIn(@Param("tokenHashes") Collection<byte[]> tokenHashes,
+                               @Param("clientId") String clientId);
+
+    // Cleanup: deletes up to batchSize families that expired before the
+    // cutoff, oldest first via the expires_at index. Rows locked by a
+    // request in flight are skipped, so the purge never waits on one.
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM refresh_token_families WHERE id IN ("
+            + "SELECT id FROM refresh_token_families WHERE expires_at < :cutoff "
+            + "ORDER BY expires_at LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteExpired(@Param("cutoff") Instant cutoff, @Param("batchSize") int batchSize);
+}
@@ -1,6 +1,14 @@
 package com.rackleet.authserver.repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.rackleet.authserver.entity.RevokedToken;
 
@@ -8,6 +16,42 @@ public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long
 
     // The one question this table answers:
     // Has this access token been revoked?
-    boolean existsByJti(String jti);
-    
+    boolean existsByJti(UUID jti);
+
+    // Feeds the in-memory RevocationIndex: unexpired rows revoked since
+    // the last sync (or all of them, on startup)
+    List<RevokedToken> findByRevokedAtAfterAndExpiresAtAfter(Instant revokedAfter, Instant expiresAfter);
+
+    // Adds any number of jtis in one statement, skipping ones already
+    // revoked. Returns the jtis actually inserted.
+    // Lists go over as comma-joined text - jtis are UUIDs we issued.
+    // Handed back as text, the form they have in the JWT.
+    @Query(value = "INSERT INTO revoked_tokens (jti, expires_at) "
+            + "SELECT t.jti, to_timestamp(t.exp) "
+            + "FROM unnest(CAST(string_to_array(:jtis, ',') AS UUID[]), "
+            + "CAST(string_to_array(:expiries, ',') AS BIGINT[])) AS t(jti, exp) "
+            + "ON CONFLICT (jti, expires_at) DO NOTHING "
+            + "RETURNING CAST(jti AS TEXT)", nativeQuery = true)
+    List<String> insertAll(@Param("jtis") String jtis, @Param("expiries") String expiries);
+
+    default List<String> insertAll(Map<String, Instant> expiryByJti) {
+        StringJoiner jtis = new StringJoiner(",");
+        StringJoiner expiries = new StringJoiner(",");
+        expiryByJti.forEach((jti, expiresAt) -> {
+            jtis.add(jti);
+            expiries.add(Long.toString(expiresAt.getEpochSecond()));
+        });
+        return insertAll(jtis.toString(), expiries.toString());
+    }
+
+    // Queues a NOTIFY that Postgres delivers to every listener on commit.
+    // Lives here because revocations are what it announces.
+    @Query(value = "SELECT 1 FROM (SELECT pg_notify(:channel, :payload)) AS n", nativeQuery = true)
+    Integer notify(@Param("channel") String channel, @Param("payload") String payload);
+
+    // Same, for many payloads (newline-separated) in one round trip
+    @Query(value = "SELECT COUNT(pg_notify(:channel, p)) "
+            + "FROM unnest(string_to_array(:payloads, chr(10))) AS p", nativeQuery = true)
+    Long notifyAll(@Param("channel") String channel, @Param("payloads") String payloads);
+
 }
@@ -0,0 +1,22 @@
+package com.rackleet.authserver.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.rackleet.authserver.entity.SigningKey;
+
+public interface SigningKeyRepository extends JpaRepository<SigningKey, Long> {
+
+    boolean existsByKid(String kid);
+
+    @Modifying
+    @Query("DELETE FROM SigningKey k WHERE k.kid = :kid")
+    int deleteByKid(@Param("kid") String kid);
+
+    // Transaction-scoped advisory lock. Nodes booting at the same time
+    // queue here so only the first one generates the initial key set.
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:lockId)) AS l", nativeQuery = true)
+    Integer acquireXactLock(@Param("lockId") long lockId);
+}
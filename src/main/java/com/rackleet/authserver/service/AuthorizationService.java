@@ -1,15 +1,14 @@
 package com.rackleet.authserver.service;
 
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.crypto.AuthorizationCodeCodec;
 import com.rackleet.authserver.crypto.HashUtils;
 import com.rackleet.authserver.dto.request.AuthorizationRequest;
 import com.rackleet.authserver.entity.AuthorizationCode;
-import com.rackleet.authserver.entity.OAuthClient;
 import com.rackleet.authserver.exception.OAuthError;
 import com.rackleet.authserver.exception.OAuthException;
 import com.rackleet.authserver.exception.OAuthRedirectException;
 import com.rackleet.authserver.repository.AuthorizationCodeRepository;
-import com.rackleet.authserver.repository.OAuthClientRepository;
-import com.rackleet.authserver.util.JsonUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -17,7 +16,6 @@ import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Arrays;
 import java.util.List;
 
 @Service
@@ -27,16 +25,19 @@ public class AuthorizationService {
 
     private static final int CODE_LIFETIME_MINUTES = 10;
 
-    private final OAuthClientRepository clientRepository;
+    private final ClientRegistry clientRegistry;
     private final AuthorizationCodeRepository authCodeRepository;
     private final ConsentService consentService;
+    private final ScopeRegistry scopeRegistry;
+    private final AuthorizationCodeCodec authorizationCodeCodec;
+    private final AuthServerProperties properties;
 
     /**
      * Validates the authorization request and resolves scopes.
      * If no scope is requested, default scopes are applied.
      * Scopes are validated against both the database and the client's allowed set.
      */
-    public OAuthClient validateAuthorizationRequest(AuthorizationRequest request) {
+    public ClientPolicy validateAuthorizationRequest(AuthorizationRequest request) {
 
         // Tier 1: client_id and redirect_uri 
 
@@ -46,11 +47,12 @@ public class AuthorizationService {
                     HttpStatus.BAD_REQUEST);
         }
 
-        OAuthClient client = clientRepository.findByClientId(request.getClientId())
-                .filter(OAuthClient::isActive)
-                .orElseThrow(() -> new OAuthException(OAuthError.INVALID_CLIENT,
-                        "Unknown client: " + request.getClientId(),
-                        HttpStatus.BAD_REQUEST));
+        ClientPolicy client = clientRegistry.findActive(request.getClientId());
+        if (client == null) {
+            throw new OAuthException(OAuthError.INVALID_CLIENT,
+                    "Unknown client: " + request.getClientId(),
+                    HttpStatus.BAD_REQUEST);
+        }
 
         if (request.getRedirectUri() == null || request.getRedirectUri().isBlank()) {
             throw new OAuthException(OAuthError.INVALID_REQUEST,
@@ -58,8 +60,7 @@ public class AuthorizationService {
                     HttpStatus.BAD_REQUEST);
         }
 
-        List<String> registeredUris = JsonUtils.fromJson(client.getRedirectUris());
-        if (!registeredUris.contains(request.getRedirectUri())) {
+        if (!client.allowsRedirectUri(request.getRedirectUri())) {
             throw new OAuthException(OAuthError.INVALID_REQUEST,
                     "redirect_uri does not match any registered URI",
                     HttpStatus.BAD_REQUEST);
@@ -91,15 +92,13 @@ public class AuthorizationService {
             }
 
             // Validate scopes are in the client's allowed set
-            List<String> requestedScopes = Arrays.asList(request.getScope().split(" "));
-            List<String> allowedScopes = JsonUtils.fromJson(client.getAllowedScopes());
-
-            for (String scope : requestedScopes) {
-                if (!allowedScopes.contains(scope)) {
-                    throw buildRedirectException(OAuthError.INVALID_SCOPE,
-                            "Scope not allowed for this client: " + scope,
-                            request);
-                }
+            ScopeSet requestedScopes = scopeRegistry.parse(request.getScope());
+            if (!client.allowsScopes(requestedScopes)) {
+                String firstDisallowed = scopeRegistry
+                        .namesOf(requestedScopes.minus(client.getAllowedScopeSet())).get(0);
+                throw buildRedirectException(OAuthError.INVALID_SCOPE,
+                        "Scope not allowed for this client: " + firstDisallowed,
+                        request);
             }
         }
 
@@ -124,8 +123,7 @@ public class AuthorizationService {
             }
         }
 
-        List<String> allowedGrants = JsonUtils.fromJson(client.getAllowedGrantTypes());
-        if (!allowedGrants.contains("authorization_code")) {
+        if (!client.allowsGrantType("authorization_code")) {
             throw buildRedirectException(OAuthError.UNAUTHORIZED_CLIENT,
                     "Client is not authorized for authorization_code grant",
                     request);
@@ -158,10 +156,7 @@ public class AuthorizationService {
     }
 
     public String generateAuthorizationCode(AuthorizationRequest request, Long userId) {
-        String rawCode = HashUtils.generateRandomToken();
-
         AuthorizationCode authCode = new AuthorizationCode();
-        authCode.setCodeHash(HashUtils.sha256(rawCode));
         authCode.setClientId(request.getClientId());
         authCode.setUserId(userId);
         authCode.setRedirectUri(request.getRedirectUri());
@@ -170,6 +165,15 @@ public class AuthorizationService {
         authCode.setCodeChallengeMethod(request.getCodeChallengeMethod());
         authCode.setExpiresAt(Instant.now().plus(CODE_LIFETIME_MINUTES, ChronoUnit.MINUTES));
 
+        // Encrypted: the grant travels in the code, nothing is written
+        if ("encrypted".equals(properties.getAuthorizationCodes().getFormat())) {
+            log.debug("Encrypted authorization code generated for client '{}', user '{}'",
+                    request.getClientId(), userId);
+            return authorizationCodeCodec.seal(authCode);
+        }
+
+        String rawCode = HashUtils.generateRandomToken();
+        authCode.setCodeHash(HashUtils.sha256(rawCode));
         authCodeRepository.save(authCode);
 
         log.debug("Authorization code generated for client '{}', user '{}'",
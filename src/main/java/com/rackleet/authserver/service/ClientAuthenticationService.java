@@ -7,10 +7,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import com.rackleet.authserver.entity.OAuthClient;
 import com.rackleet.authserver.exception.OAuthError;
 import com.rackleet.authserver.exception.OAuthException;
-import com.rackleet.authserver.repository.OAuthClientRepository;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -21,18 +19,19 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ClientAuthenticationService {
     
-    private final OAuthClientRepository clientRepository;
+    private final ClientRegistry clientRegistry;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final ClientSecretCache secretCache;
 
     /**
      * Authenticates a client from an incoming HTTP request.
      * Determines the authentication method from the request and
      * validates it matches the client's registered method.
      * 
-     * @return the authenticated active OAuthClient entity
+     * @return the compiled policy of the authenticated active client
      * @throws OAuthException with invalid_client if authentication fails
      */ 
-    public OAuthClient authenticateClient(HttpServletRequest request) {
+    public ClientPolicy authenticateClient(HttpServletRequest request) {
         // Check for Basic auth header first
         String authHeader = request.getHeader("Authorization");
         boolean hasBasicHeader = authHeader != null && authHeader.toLowerCase().startsWith("basic ");
@@ -63,7 +62,7 @@ public class ClientAuthenticationService {
 
     // ── Basic authentication ────────────────────────────────────
 
-    private OAuthClient authenticateBasic(String authHeader) {
+    private ClientPolicy authenticateBasic(String authHeader) {
         String base64Credentials = authHeader.substring("Basic ".length()).trim();
         
         String decoded;
@@ -85,7 +84,7 @@ public class ClientAuthenticationService {
         String clientId = urlDecode(decoded.substring(0, colonIndex));
         String clientSecret = urlDecode(decoded.substring(colonIndex + 1));
 
-        OAuthClient client = lookupActiveClient(clientId);
+        ClientPolicy client = lookupActiveClient(clientId);
 
         verifyAuthMethod(client, "client_secret_basic");
         verifySecret(client, clientSecret);
@@ -96,12 +95,12 @@ public class ClientAuthenticationService {
 
     // ── Post authentication ─────────────────────────────────────
 
-    private OAuthClient authenticatePost(String clientId, String clientSecret) {
+    private ClientPolicy authenticatePost(String clientId, String clientSecret) {
         if (clientId == null || clientId.isBlank()) {
             throw invalidClientException("client_id is required");
         }
 
-        OAuthClient client = lookupActiveClient(clientId);
+        ClientPolicy client = lookupActiveClient(clientId);
         verifyAuthMethod(client, "client_secret_post");
         verifySecret(client, clientSecret);
 
@@ -111,12 +110,12 @@ public class ClientAuthenticationService {
 
     // ── No authentication (public clients) ──────────────────────
 
-    private OAuthClient authenticateNone(String clientId) {
+    private ClientPolicy authenticateNone(String clientId) {
         if (clientId.isBlank()) {
             throw invalidClientException("client_id is required");
         }
 
-        OAuthClient client = lookupActiveClient(clientId);
+        ClientPolicy client = lookupActiveClient(clientId);
 
         verifyAuthMethod(client, "none");
 
@@ -127,25 +126,31 @@ public class ClientAuthenticationService {
 
     // ── Helpers ──────────────────────────────────────────
 
-    private OAuthClient lookupActiveClient(String clientId) {
-        return clientRepository.findByClientId(clientId)
-                .filter(OAuthClient::isActive)
-                .orElseThrow(() -> invalidClientException(
-                        "Client not found or inactive: " + clientId));
+    private ClientPolicy lookupActiveClient(String clientId) {
+        ClientPolicy client = clientRegistry.findActive(clientId);
+        if (client == null) {
+            throw invalidClientException("Client not found or inactive: " + clientId);
+        }
+        return client;
     }
 
-    private void verifyAuthMethod(OAuthClient client, String expectedMethod) {
+    private void verifyAuthMethod(ClientPolicy client, String expectedMethod) {
         if (!client.getTokenEndpointAuthMethod().equals(expectedMethod)) {
             throw invalidClientException(
                 "Client registered for '" + client.getTokenEndpointAuthMethod() + "' but attempted '" + expectedMethod + "'");
         }
     }
 
-    private void verifySecret(OAuthClient client, String rawSecret) {
+    private void verifySecret(ClientPolicy client, String rawSecret) {
         if (client.getClientSecretHash() == null) {
             throw invalidClientException("Client has no secret configured");
         }
 
+        // Recently verified with this exact secret and hash - skip bcrypt
+        if (secretCache.isVerified(client.getClientId(), rawSecret, client.getClientSecretHash())) {
+            return;
+        }
+
         /** Critical Security Detail
          * Constant-time comparison. When you verify the secret, you must not short-circuit. A naive string comparison like storedHash.equals(providedHash) returns faster when the first characters don't match, which leaks timing information. 
          * An attacker can measure response times to guess the secret character by character.
@@ -156,6 +161,8 @@ public class ClientAuthenticationService {
         if (!passwordEncoder.matches(rawSecret, client.getClientSecretHash())) {
             throw invalidClientException("Invalid client secret");
         }
+
+        secretCache.markVerified(client.getClientId(), rawSecret, client.getClientSecretHash());
     }
 
     private String urlDecode(String value) {
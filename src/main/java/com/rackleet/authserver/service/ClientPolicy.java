@@ -0,0 +1,71 @@
+package com.rackleet.authserver.service;
+
+import java.util.List;
+import java.util.Set;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.rackleet.authserver.entity.OAuthClient;
+import com.rackleet.authserver.util.JsonUtils;
+
+import lombok.ToString;
+import lombok.Value;
+
+/**
+ * Immutable, pre-compiled view of an active client's registration.
+ *
+ * The JSON columns on OAuthClient are parsed once into hash sets when the
+ * policy is built, so the authorize and token endpoints can check redirect
+ * URIs, grant types and scopes without touching the database or Jackson.
+ * Instances are shared across threads by ClientRegistry.
+ */
+@Value
+@ToString(exclude = {"clientSecretHash"}) // never log secrets
+public class ClientPolicy {
+
+    String clientId;
+    String clientSecretHash;
+    String clientName;
+    String clientType;
+    Set<String> redirectUris;
+    Set<String> allowedGrantTypes;
+    Set<String> allowedScopes;
+    ScopeSet allowedScopeSet; // allowedScopes as registry bits
+    String tokenEndpointAuthMethod;
+    boolean requirePkce;
+    int accessTokenTtlSeconds;
+    int refreshTokenTtlSeconds;
+    JWSAlgorithm accessTokenSigningAlg;
+
+    public static ClientPolicy from(OAuthClient client, ScopeRegistry scopeRegistry) {
+        List<String> allowedScopes = JsonUtils.fromJson(client.getAllowedScopes());
+        return new ClientPolicy(
+                client.getClientId(),
+                client.getClientSecretHash(),
+                client.getClientName(),
+                client.getClientType(),
+                Set.copyOf(JsonUtils.fromJson(client.getRedirectUris())),
+                Set.copyOf(JsonUtils.fromJson(client.getAllowedGrantTypes())),
+                Set.copyOf(allowedScopes),
+                scopeRegistry.parse(allowedScopes),
+                client.getTokenEndpointAuthMethod(),
+                client.isRequirePkce(),
+                client.getAccessTokenTtlSeconds(),
+                client.getRefreshTokenTtlSeconds(),
+                JWSAlgorithm.parse(client.getAccessTokenSigningAlg()));
+    }
+
+    public boolean allowsRedirectUri(String redirectUri) {
+        return redirectUris.contains(redirectUri);
+    }
+
+    public boolean allowsGrantType(String grantType) {
+        return allowedGrantTypes.contains(grantType);
+    }
+
+    /**
+     * True if every scope in the set is allowed for this client.
+     */
+    public boolean allowsScopes(ScopeSet scopes) {
+        return allowedScopeSet.containsAll(scopes);
+    }
+}
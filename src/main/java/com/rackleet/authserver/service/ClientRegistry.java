@@ -0,0 +1,65 @@
+package com.rackleet.authserver.service;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.entity.OAuthClient;
+import com.rackleet.authserver.repository.OAuthClientRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory registry of active clients, keyed by client_id.
+ *
+ * The first lookup for a client loads it from the database and compiles it
+ * into a ClientPolicy. After that the request path is served from memory.
+ * Entries are reloaded in the background once they are older than the
+ * refresh interval, which is how changes made on other nodes show up.
+ * Changes made on this node evict the entry immediately.
+ *
+ * Unknown and inactive clients are not cached, so they always hit the
+ * database and a newly registered client is visible right away.
+ */
+@Component
+@Slf4j
+public class ClientRegistry {
+
+    private final LoadingCache<String, ClientPolicy> policies;
+
+    public ClientRegistry(OAuthClientRepository clientRepository, ScopeRegistry scopeRegistry,
+            AuthServerProperties properties, MeterRegistry meterRegistry) {
+        AuthServerProperties.ClientRegistry config = properties.getClientRegistry();
+        this.policies = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .refreshAfterWrite(config.getRefreshAfter())
+                .expireAfterWrite(config.getExpireAfter())
+                .recordStats()
+                .build(clientId -> clientRepository.findByClientId(clientId)
+                        .filter(OAuthClient::isActive)
+                        .map(client -> ClientPolicy.from(client, scopeRegistry))
+                        .orElse(null));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, policies, "client_policies");
+    }
+
+    /**
+     * Returns the compiled policy for an active client, or null if the
+     * client doesn't exist or has been deactivated.
+     */
+    public ClientPolicy findActive(String clientId) {
+        return policies.get(clientId);
+    }
+
+    /**
+     * Drops the cached policy so the next lookup reloads it.
+     * Called after any change to the client's registration.
+     */
+    public void invalidate(String clientId) {
+        policies.invalidate(clientId);
+        log.debug("Client policy for '{}' invalidated", clientId);
+    }
+}
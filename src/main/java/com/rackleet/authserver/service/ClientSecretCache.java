@@ -0,0 +1,94 @@
+package com.rackleet.authserver.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.crypto.HashUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Remembers client secrets that recently passed bcrypt verification so the
+ * token, revoke and introspect endpoints don't pay ~250ms of CPU per call.
+ *
+ * Raw secrets are never stored. Entries are keyed by client_id plus an
+ * HMAC of the presented secret under a per-process random key, and hold the
+ * bcrypt hash the secret was verified against. A hit only counts if that
+ * hash still matches the client's current one, so a changed secret can
+ * never be satisfied from the cache.
+ *
+ * Only successes are cached - a wrong secret always goes through bcrypt.
+ */
+@Component
+public class ClientSecretCache {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, String> verified;
+    private final SecretKeySpec macKey;
+
+    public ClientSecretCache(AuthServerProperties properties, MeterRegistry meterRegistry) {
+        AuthServerProperties.ClientAuth config = properties.getClientAuth();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(config.getSecretCacheMaxSize())
+                .expireAfterWrite(config.getSecretCacheTtl())
+                .recordStats()
+                .build();
+
+        // Node-local key: the cache is node-local too, so it never needs sharing
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        this.macKey = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+
+        // Exposes cache.gets{result=hit|miss}, cache.size, cache.evictions
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "client_secret_verifications");
+    }
+
+    /**
+     * True if this exact secret was verified for the client against the
+     * given bcrypt hash within the TTL.
+     */
+    public boolean isVerified(String clientId, String rawSecret, String secretHash) {
+        String cachedHash = verified.getIfPresent(cacheKey(clientId, rawSecret));
+        return cachedHash != null && cachedHash.equals(secretHash);
+    }
+
+    /**
+     * Records a successful bcrypt verification.
+     */
+    public void markVerified(String clientId, String rawSecret, String secretHash) {
+        verified.put(cacheKey(clientId, rawSecret), secretHash);
+    }
+
+    /**
+     * Drops every cached verification for a client.
+     * Called whenever the client is updated or deactivated.
+     */
+    public void invalidate(String clientId) {
+        String prefix = clientId + ":";
+        verified.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private String cacheKey(String clientId, String rawSecret) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(macKey);
+            mac.update(clientId.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0); // separator so (id, secret) pairs can't collide
+            byte[] tag = mac.doFinal(rawSecret.getBytes(StandardCharsets.UTF_8));
+            return clientId + ":" + HashUtils.base64Url(tag);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("HmacSHA256 not available", e);
+        }
+    }
+}
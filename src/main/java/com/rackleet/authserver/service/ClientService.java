@@ -1,16 +1,18 @@
 package com.rackleet.authserver.service;
 
 import java.net.URI;
-import java.security.SecureRandom;
-import java.util.Base64;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.rackleet.authserver.crypto.HashUtils;
+import com.rackleet.authserver.crypto.KeyManager;
 import com.rackleet.authserver.dto.request.ClientRegistrationRequest;
 import com.rackleet.authserver.dto.response.ClientInfoResponse;
 import com.rackleet.authserver.dto.response.ClientRegistrationResponse;
@@ -39,8 +41,14 @@ public class ClientService {
         "none"
     );
 
+    private static final Set<String> VALID_SIGNING_ALGS = KeyManager.SUPPORTED_ALGORITHMS.stream()
+        .map(JWSAlgorithm::getName)
+        .collect(Collectors.toUnmodifiableSet());
+
     private final OAuthClientRepository clientRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final ClientSecretCache secretCache;
+    private final ClientRegistry clientRegistry;
 
     public ClientRegistrationResponse registerClient(ClientRegistrationRequest request) {
         // Validate client type
@@ -59,6 +67,10 @@ public class ClientService {
         // Determine and validate auth method
         String authMethod = resolveAuthMethod(request);
 
+        if (request.getAccessTokenSigningAlg() != null) {
+            validateSigningAlg(request.getAccessTokenSigningAlg());
+        }
+
         // Validate redirect URIs
         if (request.getRedirectUris() != null) {
             for (String uri : request.getRedirectUris()) {
@@ -107,6 +119,9 @@ public class ClientService {
                 request.getRefreshTokenTtlSeconds() != null
                         ? request.getRefreshTokenTtlSeconds()
                         : 2592000);
+        if (request.getAccessTokenSigningAlg() != null) {
+            client.setAccessTokenSigningAlg(request.getAccessTokenSigningAlg());
+        }
 
         clientRepository.save(client);
 
@@ -152,8 +167,13 @@ public class ClientService {
         if (request.getRefreshTokenTtlSeconds() != null) {
             client.setRefreshTokenTtlSeconds(request.getRefreshTokenTtlSeconds());
         }
+        if (request.getAccessTokenSigningAlg() != null) {
+            validateSigningAlg(request.getAccessTokenSigningAlg());
+            client.setAccessTokenSigningAlg(request.getAccessTokenSigningAlg());
+        }
 
         clientRepository.save(client);
+        evictCachedClient(clientId);
         return buildInfoResponse(client);
     }
 
@@ -161,6 +181,7 @@ public class ClientService {
         OAuthClient client = findActiveClient(clientId);
         client.setActive(false);
         clientRepository.save(client);
+        evictCachedClient(clientId);
     }
 
     // --- Private Helpers ---
@@ -172,6 +193,12 @@ public class ClientService {
                 HttpStatus.NOT_FOUND));
     }
 
+    // Other nodes pick the change up on their next registry refresh
+    private void evictCachedClient(String clientId) {
+        clientRegistry.invalidate(clientId);
+        secretCache.invalidate(clientId);
+    }
+
     private String resolveAuthMethod(ClientRegistrationRequest request) {
         String method = request.getTokenEndpointAuthMethod();
         if (method == null) {
@@ -188,9 +215,13 @@ public class ClientService {
     }
 
     private String generateClientSecret() {
-        byte[] bytes = new byte[32];
-        new SecureRandom().nextBytes(bytes);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        return HashUtils.generateRandomToken();
+    }
+
+    private void validateSigningAlg(String alg) {
+        if (!VALID_SIGNING_ALGS.contains(alg)) {
+            throw new OAuthException(OAuthError.INVALID_REQUEST, "Unsupported access_token_signing_alg: " + alg, HttpStatus.BAD_REQUEST);
+        }
     }
 
     private void validateRedirectUri(String uri) {
@@ -234,6 +265,7 @@ public class ClientService {
         response.setRequirePkce(client.isRequirePkce());
         response.setAccessTokenTtlSeconds(client.getAccessTokenTtlSeconds());
         response.setRefreshTokenTtlSeconds(client.getRefreshTokenTtlSeconds());
+        response.setAccessTokenSigningAlg(client.getAccessTokenSigningAlg());
         response.setCreatedAt(client.getCreatedAt());
         return response;
     }
@@ -250,6 +282,7 @@ public class ClientService {
         response.setRequirePkce(client.isRequirePkce());
         response.setAccessTokenTtlSeconds(client.getAccessTokenTtlSeconds());
         response.setRefreshTokenTtlSeconds(client.getRefreshTokenTtlSeconds());
+        response.setAccessTokenSigningAlg(client.getAccessTokenSigningAlg());
         response.setCreatedAt(client.getCreatedAt());
         response.setUpdatedAt(client.getUpdatedAt());
         return response;
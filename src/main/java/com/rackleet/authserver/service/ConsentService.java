@@ -1,21 +1,14 @@
 package com.rackleet.authserver.service;
 
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.rackleet.authserver.entity.RefreshToken;
-import com.rackleet.authserver.entity.Scope;
 import com.rackleet.authserver.entity.UserConsent;
-import com.rackleet.authserver.repository.RefreshTokenRepository;
-import com.rackleet.authserver.repository.ScopeRepository;
 import com.rackleet.authserver.repository.UserConsentRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -27,8 +20,8 @@ import lombok.extern.slf4j.Slf4j;
 public class ConsentService {
     
     private final UserConsentRepository consentRepo;
-    private final ScopeRepository scopeRepo;
-    private final RefreshTokenRepository refreshTokenRepo;
+    private final ScopeRegistry scopeRegistry;
+    private final TokenRevocationService tokenRevocationService;
 
     // Checks if the user already consented to all requested scopes for this client. Skip consent screen if true 
     public boolean hasConsent(Long userId, String clientId, String requestedScope) {
@@ -38,7 +31,8 @@ public class ConsentService {
             return false;
         }
 
-        return existing.get().coversScopes(requestedScope);
+        ScopeSet granted = scopeRegistry.parse(existing.get().getGrantedScopes());
+        return granted.containsAll(scopeRegistry.parse(requestedScope));
     }
 
     // Stores or updates the users consent for a client
@@ -49,17 +43,16 @@ public class ConsentService {
         if (existing.isPresent()) {
             // Merge new scopes with existing ones
             UserConsent consent = existing.get();
-            Set<String> mergedScopes = new HashSet<>(Arrays.asList(consent.getGrantedScopes().split(" ")));
-
-            mergedScopes.addAll(Arrays.asList(scope.split(" ")));
-            consent.setGrantedScopes(String.join(" ", mergedScopes));
+            ScopeSet merged = scopeRegistry.parse(consent.getGrantedScopes())
+                    .union(scopeRegistry.parse(scope));
+            consent.setGrantedScopes(scopeRegistry.format(merged));
             consentRepo.save(consent);
             log.debug("Updated consent for userId '{}', clientId '{}' ", userId, clientId);
         } else {
             UserConsent consent = new UserConsent();
             consent.setUserId(userId);
             consent.setClientId(clientId);
-            consent.setGrantedScopes(scope);
+            consent.setGrantedScopes(scopeRegistry.format(scopeRegistry.parse(scope)));
             consentRepo.save(consent);
             log.debug("Created consent for userId '{}', clientId '{}'", userId, clientId);
         }
@@ -73,13 +66,9 @@ public class ConsentService {
     // Revokes consent for a specific client. Also revokes all associated refresh tokens.
     @Transactional
     public void revokeConsent(Long userId, String clientId) {
-        // Revoke all active refresh tokens for this user/client
-        List<RefreshToken> tokens = refreshTokenRepo.findByClientIdAndUserIdAndRevokedFalse(clientId, userId);
-        for (RefreshToken token : tokens) {
-            token.setRevoked(true);
-            refreshTokenRepo.save(token);
-        }
-        log.debug("Revoked {} refresh tokens for userId '{}', clientId '{}'", userId, clientId);
+        // Revoke all active refresh tokens for this user/client in one statement
+        int revoked = tokenRevocationService.revokeRefreshTokens(userId, clientId);
+        log.debug("Revoked {} refresh tokens for userId '{}', clientId '{}'", revoked, userId, clientId);
     }
 
     // Looks up scope descriptions for the consent screen
@@ -88,33 +77,24 @@ public class ConsentService {
             return Map.of();
         }
 
-        List<String> scopeNames = Arrays.asList(scope.split(" "));
-        List<Scope> scopes = scopeRepo.findByNameIn(scopeNames);
-
-        return scopes.stream().collect(Collectors.toMap(Scope::getName, s -> s.getDescription() != null ? s.getDescription() : s.getName()));
+        Map<String, String> descriptions = new LinkedHashMap<>();
+        for (String name : scope.split(" ")) {
+            ScopeRegistry.RegisteredScope registered = scopeRegistry.find(name);
+            if (registered != null) {
+                descriptions.put(name, registered.description() != null ? registered.description() : name);
+            }
+        }
+        return descriptions;
     }
 
     // Returns the default scope to grant when the client doesnt request a specific scope
     public String getDefaultScopes() {
-        List<Scope> defaults = scopeRepo.findByIsDefaultTrue();
-        if (defaults.isEmpty()) {
-            return null;
-        }
-
-        return defaults.stream().map(Scope::getName).collect(Collectors.joining(" "));
+        return scopeRegistry.getDefaultScopes();
     }
 
-    // Validates that all requested scopes exist in the db.
+    // Validates that all requested scopes exist in the registry.
     // Returns a list of the invalid scopes or an empty list if all are valid
     public List<String> validateScopesExist(String scope) {
-        if (scope == null || scope.isBlank()) {
-            return List.of();
-        }
-
-        List<String> requested = Arrays.asList(scope.split(" "));
-        List<Scope> found = scopeRepo.findByNameIn(requested);
-        Set<String> foundNames = found.stream().map(Scope::getName).collect(Collectors.toSet());
-
-        return requested.stream().filter(s -> !foundNames.contains(s)).collect(Collectors.toList()); 
+        return scopeRegistry.findUnknown(scope);
     }
 }
@@ -0,0 +1,126 @@
+package com.rackleet.authserver.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.IntUnaryOperator;
+
+import javax.sql.DataSource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.repository.RefreshTokenFamilyRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes expired refresh token families, which otherwise pile up in the
+ * table and its indexes. authorization_codes and revoked_tokens are
+ * partitioned by expiry instead and cleaned up by PartitionMaintainer.
+ *
+ * Rows go in small batches, each its own transaction, with a pause in
+ * between, so the purge never holds locks or I/O long enough to slow the
+ * token endpoint. Only one node purges at a time: the run holds a
+ * session-level advisory lock, and nodes that can't take it skip the run.
+ */
+@Component
+@Slf4j
+public class ExpiredTokenPurger {
+
+    // Arbitrary, but must not collide with other advisory locks in this database
+    private static final long PURGE_LOCK_ID = 0x5055524745544B4EL; // "PURGETKN"
+
+    private final DataSource dataSource;
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final AuthServerProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Timer runTimer;
+
+    public ExpiredTokenPurger(DataSource dataSource,
+                              RefreshTokenFamilyRepository refreshTokenFamilyRepository,
+                              AuthServerProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.refreshTokenFamilyRepository = refreshTokenFamilyRepository;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.runTimer = Timer.builder("token_purge_duration")
+                .description("Time spent purging expired rows, per run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${authserver.purge.interval:10m}",
+            fixedDelayString = "${authserver.purge.interval:10m}")
+    public void purge() {
+        // The lock belongs to this connection's session, so it is released
+        // even if the node dies mid-run
+        try (Connection lockConnection = dataSource.getConnection()) {
+            if (!advisoryLock(lockConnection, "pg_try_advisory_lock")) {
+                log.debug("Expired token purge is running on another node, skipping");
+                return;
+            }
+            try {
+                runTimer.record(this::purgeAll);
+            } finally {
+                advisoryLock(lockConnection, "pg_advisory_unlock");
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Whatever was deleted stays deleted; the next run picks up the rest
+            log.error("Expired token purge failed", e);
+        }
+    }
+
+    private void purgeAll() {
+        long start = System.nanoTime();
+        Instant cutoff = Instant.now().minus(properties.getPurge().getRetention());
+
+        int families = purgeTable("refresh_token_families",
+                batchSize -> refreshTokenFamilyRepository.deleteExpired(cutoff, batchSize));
+
+        if (families > 0) {
+            log.info("Purged {} refresh token families in {} ms",
+                    families, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        }
+    }
+
+    // Deletes batch after batch until one comes back short
+    private int purgeTable(String table, IntUnaryOperator deleteBatch) {
+        AuthServerProperties.Purge config = properties.getPurge();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = deleteBatch.applyAsInt(config.getBatchSize());
+            total += deleted;
+        } while (deleted == config.getBatchSize() && pause(config.getBatchPause()));
+
+        meterRegistry.counter("token_purge_rows", "table", table).increment(total);
+        return total;
+    }
+
+    // False if interrupted - shutting down, so stop purging
+    private boolean pause(Duration pause) {
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?)")) {
+            statement.setLong(1, PURGE_LOCK_ID);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.rackleet.authserver.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.rackleet.authserver.config.AuthServerProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Remembers introspection results for access tokens that already passed
+ * signature verification, so a popular token is parsed and verified once
+ * rather than on every resource server call.
+ *
+ * Entries are keyed by the token's SHA-256 digest - the token itself is
+ * never held - and expire exactly at the token's exp. Only
+ * active results are cached. A revocation event evicts the entry at once,
+ * and every hit is still checked against the RevocationIndex, so a
+ * revocation racing with a cache fill can't leave a revoked token active.
+ */
+@Component
+public class IntrospectionCache {
+
+    private record Entry(String jti, Instant expiresAt, Map<String, Object> result) {
+    }
+
+    private final Cache<String, Entry> entries;
+    private final RevocationIndex revocationIndex;
+
+    // jti → cache key, so a revocation (which only knows the jti) can evict
+    private final Map<String, String> keysByJti = new ConcurrentHashMap<>();
+
+    public IntrospectionCache(RevocationIndex revocationIndex, AuthServerProperties properties,
+            MeterRegistry meterRegistry) {
+        this.revocationIndex = revocationIndex;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(properties.getIntrospection().getCacheMaxSize())
+                .expireAfter(Expiry.<String, Entry>creating(
+                        (key, entry) -> Duration.between(Instant.now(), entry.expiresAt())))
+                .removalListener((String key, Entry entry, RemovalCause cause) -> {
+                    if (entry != null && entry.jti() != null) {
+                        keysByJti.remove(entry.jti(), key);
+                    }
+                })
+                .recordStats()
+                .build();
+
+        // Exposes cache.gets{result=hit|miss}, cache.size, cache.evictions
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "access_token_introspections");
+    }
+
+    /**
+     * Returns the cached active result for the token with this SHA-256
+     * (hex of HashUtils.sha256), or null if it has to be verified.
+     */
+    public Map<String, Object> get(String tokenHash) {
+        Entry entry = entries.getIfPresent(tokenHash);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.jti() != null && revocationIndex.isRevoked(entry.jti())) {
+            return null; // revoked since it was cached; eviction is on its way
+        }
+        return entry.result();
+    }
+
+    /**
+     * Caches an active result until the token's exp.
+     */
+    public void put(String tokenHash, String jti, Instant expiresAt, Map<String, Object> result) {
+        entries.put(tokenHash, new Entry(jti, expiresAt, Collections.unmodifiableMap(new LinkedHashMap<>(result))));
+        if (jti != null) {
+            keysByJti.put(jti, tokenHash);
+        }
+    }
+
+    @EventListener
+    public void onTokenRevoked(TokenRevokedEvent event) {
+        if (event.type() == TokenRevokedEvent.Type.ACCESS_TOKEN) {
+            String key = keysByJti.remove(event.id());
+            if (key != null) {
+                entries.invalidate(key);
+            }
+        }
+    }
+}
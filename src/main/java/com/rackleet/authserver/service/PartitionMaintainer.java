@@ -0,0 +1,238 @@
+package com.rackleet.authserver.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.repository.OAuthClientRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the daily expires_at partitions of authorization_codes,
+ * revoked_tokens (see V12) and redeemed_codes (V14) in step with the clock: creates them ahead of
+ * the longest-lived row that could need one, and drops them once every
+ * row they hold is past the purge retention. Dropping a partition is
+ * the whole cleanup - no DELETE, nothing left for vacuum.
+ *
+ * DDL takes locks on the parent table, so each change is made the way
+ * that locks least: a new partition is created standalone and attached
+ * (SHARE UPDATE EXCLUSIVE, which doesn't block reads or writes), an old
+ * one is detached concurrently before it is dropped, and every statement
+ * gives up after LOCK_TIMEOUT rather than queue in front of token
+ * requests. Whatever gets skipped is retried next run.
+ *
+ * Each table also has a DEFAULT partition (V15) that takes any row whose
+ * day has no partition yet, so a late run never fails an insert. Creating
+ * a day moves its rows out of the default first - Postgres won't attach
+ * over rows the default already holds for that range - and rows that
+ * expire in the default are deleted with the same retention.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionMaintainer {
+
+    private static final List<String> PARTITIONED_TABLES =
+            List.of("authorization_codes", "revoked_tokens", "redeemed_codes");
+
+    // Arbitrary, but must not collide with other advisory locks in this database
+    private static final long MAINTENANCE_LOCK_ID = 0x504152544D41494EL; // "PARTMAIN"
+
+    private static final String LOCK_TIMEOUT = "5s";
+
+    // Partition names are <table>_pYYYYMMDD, the UTC day they hold
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String SUFFIX = "_p";
+    private static final String DEFAULT_SUFFIX = "_default";
+
+    private final DataSource dataSource;
+    private final OAuthClientRepository clientRepository;
+    private final AuthServerProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // First run right after startup catches up on days missed while down
+    @Scheduled(fixedDelayString = "${authserver.partitions.check-interval:1h}")
+    public void maintain() {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!advisoryLock(connection, "pg_try_advisory_lock")) {
+                log.debug("Partition maintenance is running on another node, skipping");
+                return;
+            }
+            try {
+                execute(connection, "SET lock_timeout = '" + LOCK_TIMEOUT + "'");
+                for (String table : PARTITIONED_TABLES) {
+                    maintain(connection, table);
+                }
+            } finally {
+                execute(connection, "RESET lock_timeout");
+                advisoryLock(connection, "pg_advisory_unlock");
+            }
+        } catch (SQLException e) {
+            log.error("Partition maintenance failed", e);
+        }
+    }
+
+    private void maintain(Connection connection, String table) throws SQLException {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate lastNeeded = today.plusDays(createAhead().toDays() + 1);
+        // A day's partition goes once the next day, too, is past retention -
+        // one day of slack for expiries written in a non-UTC session zone
+        LocalDate dropBefore = LocalDate.ofInstant(
+                Instant.now().minus(properties.getPurge().getRetention()), ZoneOffset.UTC).minusDays(1);
+
+        // day → whether an earlier concurrent detach was interrupted
+        Map<LocalDate, Boolean> existing = partitions(connection, table);
+
+        for (LocalDate day = today.minusDays(1); !day.isAfter(lastNeeded); day = day.plusDays(1)) {
+            if (!existing.containsKey(day)) {
+                LocalDate partitionDay = day;
+                tryDdl(table, "create", day, () -> createPartition(connection, table, partitionDay));
+            }
+        }
+
+        existing.forEach((day, detachPending) -> {
+            if (day.isBefore(dropBefore)) {
+                tryDdl(table, "drop", day, () -> dropPartition(connection, table, day, detachPending));
+            }
+        });
+
+        tryDdl(table, "purge default", dropBefore, () -> purgeDefault(connection, table, dropBefore));
+    }
+
+    // Every row inserted from now on expires within the longest access
+    // token lifetime (codes live minutes), plus the configured margin
+    private Duration createAhead() {
+        Integer maxTtlSeconds = clientRepository.findMaxAccessTokenTtlSeconds();
+        Duration maxTtl = Duration.ofSeconds(maxTtlSeconds != null ? maxTtlSeconds : 0);
+        return maxTtl.plus(properties.getPartitions().getLookahead());
+    }
+
+    private void createPartition(Connection connection, String table, LocalDate day) throws SQLException {
+        String partition = partitionName(table, day);
+        String range = "expires_at >= '" + day + "' AND expires_at < '" + day.plusDays(1) + "'";
+        // Created on its own and attached, which doesn't block DML on the
+        // parent the way CREATE TABLE ... PARTITION OF does. Rows the
+        // default took for this day move over in the same transaction.
+        connection.setAutoCommit(false);
+        try {
+            execute(connection, "CREATE TABLE IF NOT EXISTS " + partition
+                    + " (LIKE " + table + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            int moved = update(connection, "WITH moved AS (DELETE FROM " + table + DEFAULT_SUFFIX
+                    + " WHERE " + range + " RETURNING *) INSERT INTO " + partition + " SELECT * FROM moved");
+            execute(connection, "ALTER TABLE " + table + " ATTACH PARTITION " + partition
+                    + " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+            connection.commit();
+            if (moved > 0) {
+                log.warn("Moved {} rows of {} out of the default partition", moved, partition);
+            }
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        log.info("Created partition {}", partition);
+    }
+
+    private void dropPartition(Connection connection, String table, LocalDate day, boolean detachPending)
+            throws SQLException {
+        String partition = partitionName(table, day);
+        // Must run outside a transaction - the connection is in autocommit.
+        // A detach cut short last time can only be finished, not restarted.
+        execute(connection, "ALTER TABLE " + table + " DETACH PARTITION " + partition
+                + (detachPending ? " FINALIZE" : " CONCURRENTLY"));
+        execute(connection, "DROP TABLE " + partition);
+        meterRegistry.counter("table_partitions_dropped", "table", table).increment();
+        log.info("Dropped expired partition {}", partition);
+    }
+
+    // Normally empty; only rows written while their day had no partition
+    private void purgeDefault(Connection connection, String table, LocalDate before) throws SQLException {
+        int deleted = update(connection, "DELETE FROM " + table + DEFAULT_SUFFIX
+                + " WHERE expires_at < '" + before + "'");
+        if (deleted > 0) {
+            meterRegistry.counter("token_purge_rows", "table", table).increment(deleted);
+            log.info("Purged {} expired rows from {}{}", deleted, table, DEFAULT_SUFFIX);
+        }
+    }
+
+    private Map<LocalDate, Boolean> partitions(Connection connection, String table) throws SQLException {
+        Map<LocalDate, Boolean> days = new TreeMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT c.relname, i.inhdetachpending FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = CAST(? AS regclass)")) {
+            statement.setString(1, table);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    String name = result.getString(1);
+                    try {
+                        days.put(LocalDate.parse(name.substring((table + SUFFIX).length()), DAY),
+                                result.getBoolean(2));
+                    } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+                        // Not one of ours - leave it alone
+                    }
+                }
+            }
+        }
+        return days;
+    }
+
+    private static String partitionName(String table, LocalDate day) {
+        return table + SUFFIX + day.format(DAY);
+    }
+
+    private interface Ddl {
+        void run() throws SQLException;
+    }
+
+    // One failed partition (usually a lock timeout) doesn't stop the rest
+    private void tryDdl(String table, String action, LocalDate day, Ddl ddl) {
+        try {
+            ddl.run();
+        } catch (SQLException e) {
+            log.warn("Could not {} partition of {} for {}, will retry next run: {}",
+                    action, table, day, e.getMessage());
+        }
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private int update(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            return statement.executeUpdate(sql);
+        }
+    }
+
+    private boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?)")) {
+            statement.setLong(1, MAINTENANCE_LOCK_ID);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.rackleet.authserver.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.StringJoiner;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.rackleet.authserver.repository.RevokedTokenRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spreads revocations to every node over Postgres LISTEN/NOTIFY.
+ *
+ * publish() issues pg_notify inside the revoking transaction, so the
+ * event goes out on commit and never for a rolled-back revocation. Each
+ * node keeps one dedicated connection, outside the pool, LISTENing on a
+ * background thread and re-publishes what arrives as a TokenRevokedEvent
+ * application event - node-local caches pick it up with an
+ * @EventListener, typically within milliseconds of the commit. The node that revoked hears its own event
+ * too, so listeners must be idempotent.
+ *
+ * NOTIFY is best effort: events sent while the listener is reconnecting
+ * are lost. Consumers that must not miss one also poll their table on an
+ * interval (see RevocationIndex.sync).
+ */
+@Component
+@Slf4j
+public class RevocationEventBus {
+
+    static final String CHANNEL = "authserver_revocations";
+
+    // How long one wait for notifications blocks before checking for shutdown
+    private static final int POLL_TIMEOUT_MILLIS = 5_000;
+
+    private static final Duration MAX_RECONNECT_DELAY = Duration.ofSeconds(30);
+
+    private final DataSourceProperties dataSourceProperties;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public RevocationEventBus(DataSourceProperties dataSourceProperties,
+            RevokedTokenRepository revokedTokenRepository, ApplicationEventPublisher eventPublisher) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Queues the event for delivery to every node when the current
+     * transaction commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(TokenRevokedEvent event) {
+        revokedTokenRepository.notify(CHANNEL, event.encode());
+    }
+
+    /**
+     * Same as publish(), for many events in a single statement.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(List<TokenRevokedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        StringJoiner payloads = new StringJoiner("\n");
+        events.forEach(event -> payloads.add(event.encode()));
+        revokedTokenRepository.notifyAll(CHANNEL, payloads.toString());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = Thread.ofPlatform()
+                .name("revocation-listener")
+                .daemon()
+                .start(this::listenLoop);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listenerThread.interrupt();
+        listenerThread.join(POLL_TIMEOUT_MILLIS);
+    }
+
+    private void listenLoop() {
+        Duration reconnectDelay = Duration.ofSeconds(1);
+        while (running) {
+            // Held for as long as it works, so it is opened outside the
+            // Hikari pool rather than permanently taking one of its slots
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for revocation events on '{}'", CHANNEL);
+                reconnectDelay = Duration.ofSeconds(1);
+
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Revocation listener lost its connection, retrying in {}", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                reconnectDelay = min(reconnectDelay.multipliedBy(2), MAX_RECONNECT_DELAY);
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        try {
+            eventPublisher.publishEvent(TokenRevokedEvent.decode(payload));
+        } catch (RuntimeException e) {
+            // One bad payload or listener must not stop the loop
+            log.error("Failed to handle revocation event '{}'", payload, e);
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) < 0 ? a : b;
+    }
+}
@@ -0,0 +1,137 @@
+package com.rackleet.authserver.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.rackleet.authserver.entity.RevokedToken;
+import com.rackleet.authserver.repository.RevokedTokenRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Node-local copy of the revoked_tokens table, keyed by jti.
+ *
+ * Introspection used to query revoked_tokens for every valid JWT. The
+ * table only ever holds unexpired revocations, so it is small enough to
+ * keep in memory: loaded at startup, updated as this node revokes tokens
+ * and as RevocationEventBus reports revocations from other nodes, and
+ * re-synced on an interval in case an event was missed. Entries are evicted in expiry order once the token they revoke
+ * has expired - introspection rejects expired tokens before asking here.
+ */
+@Component
+@Slf4j
+public class RevocationIndex {
+
+    // Re-read this far behind the newest revoked_at seen, so a row whose
+    // transaction committed after a later one is still picked up
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private record Entry(Instant expiresAt, String jti) {
+    }
+
+    private static final Comparator<Entry> BY_EXPIRY =
+            Comparator.comparing(Entry::expiresAt).thenComparing(Entry::jti);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    // jti → token expiry. The lookup every introspection makes.
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    // Same entries ordered by expiry, so eviction only touches expired ones
+    private final NavigableSet<Entry> byExpiry = new ConcurrentSkipListSet<>(BY_EXPIRY);
+
+    // Newest revoked_at loaded from the table. Only touched by sync()
+    private Instant watermark = Instant.EPOCH;
+
+    public RevocationIndex(RevokedTokenRepository revokedTokenRepository, MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        Gauge.builder("revocation_index_size", revoked, Map::size)
+                .description("Unexpired revoked access tokens held in memory")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        sync();
+        log.info("Revocation index loaded {} revoked tokens", revoked.size());
+    }
+
+    /**
+     * True if the token with this jti has been revoked.
+     * Never touches the database.
+     */
+    public boolean isRevoked(String jti) {
+        return revoked.containsKey(jti);
+    }
+
+    /**
+     * Records a revocation. Called by this node right after it writes
+     * the revoked_tokens row, and by sync() for rows written elsewhere.
+     */
+    public void add(String jti, Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.now())) {
+            return; // already unusable, nothing to remember
+        }
+        if (revoked.putIfAbsent(jti, expiresAt) == null) {
+            byExpiry.add(new Entry(expiresAt, jti));
+        }
+    }
+
+    @EventListener
+    public void onTokenRevoked(TokenRevokedEvent event) {
+        if (event.type() == TokenRevokedEvent.Type.ACCESS_TOKEN) {
+            add(event.id(), event.expiresAt());
+        }
+    }
+
+    /**
+     * Loads revocations written since the last sync, including any made
+     * on other nodes whose event this node missed.
+     */
+    @Scheduled(
+            initialDelayString = "${authserver.revocation.sync-interval:10s}",
+            fixedDelayString = "${authserver.revocation.sync-interval:10s}")
+    public synchronized void sync() {
+        List<RevokedToken> rows = revokedTokenRepository
+                .findByRevokedAtAfterAndExpiresAtAfter(watermark.minus(SYNC_OVERLAP), Instant.now());
+        for (RevokedToken row : rows) {
+            add(row.getJti().toString(), row.getExpiresAt());
+            if (row.getRevokedAt().isAfter(watermark)) {
+                watermark = row.getRevokedAt();
+            }
+        }
+    }
+
+    /**
+     * Drops entries whose tokens have expired, oldest first.
+     */
+    @Scheduled(fixedDelayString = "${authserver.revocation.evict-interval:1m}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        int evicted = 0;
+        for (Entry entry = byExpiry.pollFirst(); entry != null; entry = byExpiry.pollFirst()) {
+            if (entry.expiresAt().isAfter(now)) {
+                byExpiry.add(entry); // not expired - put it back and stop
+                break;
+            }
+            revoked.remove(entry.jti(), entry.expiresAt());
+            evicted++;
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} expired entries from the revocation index", evicted);
+        }
+    }
+}
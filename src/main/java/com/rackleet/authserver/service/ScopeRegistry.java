@@ -0,0 +1,235 @@
+package com.rackleet.authserver.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.rackleet.authserver.entity.Scope;
+import com.rackleet.authserver.repository.ScopeRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process copy of the scopes table.
+ *
+ * The table is tiny and almost never changes, but it used to be queried on
+ * every authorize, login and consent render. It is now loaded once at
+ * startup and re-read on a fixed interval, and every request is answered
+ * from an immutable snapshot.
+ *
+ * Polling is deliberate: nothing in the application writes scopes - they
+ * change only through migrations or SQL run against the database - so
+ * there is no write path to refresh from. An edit reaches every node
+ * within authserver.scopes.refresh-interval.
+ *
+ * Each scope name is interned to a small integer id so a set of scopes
+ * fits in a single long (see ScopeSet). Ids are append-only for the life
+ * of the process - a scope keeps its id across refreshes, even if it is
+ * removed and re-added - so a ScopeSet built earlier never changes
+ * meaning. Past FAST_PATH_SCOPES names, sets holding the newer ids fall
+ * back to ScopeSet's slower overflow words rather than fail.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScopeRegistry {
+
+    // Ids that fit in ScopeSet's single long
+    public static final int FAST_PATH_SCOPES = Long.SIZE;
+
+    private final ScopeRepository scopeRepository;
+
+    // Interned ids, guarded by "this". Only written during refresh.
+    private final Map<String, Integer> internedIds = new HashMap<>();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * A registered scope and its interned id.
+     */
+    public record RegisteredScope(int id, String name, String description, boolean isDefault) {
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    /**
+     * Reloads the scopes table and swaps in a new snapshot.
+     * Readers never block - they keep using the old snapshot until the swap.
+     */
+    @Scheduled(
+            initialDelayString = "${authserver.scopes.refresh-interval:5m}",
+            fixedDelayString = "${authserver.scopes.refresh-interval:5m}")
+    public synchronized void refresh() {
+        List<Scope> rows = new ArrayList<>(scopeRepository.findAll());
+        rows.sort(Comparator.comparing(Scope::getId));
+
+        Map<String, RegisteredScope> byName = new LinkedHashMap<>();
+        ScopeSet.Builder all = new ScopeSet.Builder();
+        ScopeSet.Builder defaults = new ScopeSet.Builder();
+
+        for (Scope row : rows) {
+            int id = intern(row.getName());
+            RegisteredScope scope = new RegisteredScope(
+                    id, row.getName(), row.getDescription(), row.isDefault());
+            byName.put(scope.name(), scope);
+            all.add(id);
+            if (scope.isDefault()) {
+                defaults.add(id);
+            }
+        }
+
+        RegisteredScope[] byId = new RegisteredScope[Math.max(internedIds.size(), FAST_PATH_SCOPES)];
+        byName.values().forEach(scope -> byId[scope.id()] = scope);
+
+        snapshot = new Snapshot(Map.copyOf(byName), byId, all.build(), defaults.build());
+        log.debug("Scope registry loaded {} scopes", byName.size());
+    }
+
+    /**
+     * Returns the registered scope with this name, or null if unknown.
+     */
+    public RegisteredScope find(String name) {
+        return snapshot.byName().get(name);
+    }
+
+    /**
+     * Parses a space-delimited scope string.
+     * Unknown names are left out - use findUnknown to reject them.
+     */
+    public ScopeSet parse(String scope) {
+        if (scope == null || scope.isBlank()) {
+            return ScopeSet.EMPTY;
+        }
+
+        Map<String, RegisteredScope> byName = snapshot.byName();
+        ScopeSet.Builder scopes = new ScopeSet.Builder();
+        for (String name : scope.split(" ")) {
+            RegisteredScope registered = byName.get(name);
+            if (registered != null) {
+                scopes.add(registered.id());
+            }
+        }
+        return scopes.build();
+    }
+
+    /**
+     * Parses a list of scope names, leaving out unknown names.
+     */
+    public ScopeSet parse(List<String> names) {
+        Map<String, RegisteredScope> byName = snapshot.byName();
+        ScopeSet.Builder scopes = new ScopeSet.Builder();
+        for (String name : names) {
+            RegisteredScope registered = byName.get(name);
+            if (registered != null) {
+                scopes.add(registered.id());
+            }
+        }
+        return scopes.build();
+    }
+
+    /**
+     * Returns the names in a space-delimited scope string that are not
+     * registered, in request order. Empty if every name is known.
+     */
+    public List<String> findUnknown(String scope) {
+        if (scope == null || scope.isBlank()) {
+            return List.of();
+        }
+
+        Map<String, RegisteredScope> byName = snapshot.byName();
+        List<String> unknown = new ArrayList<>(0);
+        for (String name : scope.split(" ")) {
+            if (!byName.containsKey(name)) {
+                unknown.add(name);
+            }
+        }
+        return unknown;
+    }
+
+    /**
+     * Returns the scope names in a set, lowest id first.
+     */
+    public List<String> namesOf(ScopeSet scopes) {
+        RegisteredScope[] byId = snapshot.byId();
+        List<String> names = new ArrayList<>(scopes.size());
+        for (int id = scopes.nextId(0); id >= 0; id = scopes.nextId(id + 1)) {
+            RegisteredScope scope = id < byId.length ? byId[id] : null;
+            if (scope != null) {
+                names.add(scope.name());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Canonical space-delimited form of a scope set: names in id order,
+     * so equal sets always serialize to the same string.
+     */
+    public String format(ScopeSet scopes) {
+        RegisteredScope[] byId = snapshot.byId();
+        StringBuilder joined = new StringBuilder();
+        for (int id = scopes.nextId(0); id >= 0; id = scopes.nextId(id + 1)) {
+            RegisteredScope scope = id < byId.length ? byId[id] : null;
+            if (scope != null) {
+                if (!joined.isEmpty()) {
+                    joined.append(' ');
+                }
+                joined.append(scope.name());
+            }
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Every registered scope. Ids never change meaning, so equal sets
+     * always name the same scopes.
+     */
+    public ScopeSet getAllScopes() {
+        return snapshot.all();
+    }
+
+    /**
+     * Space-delimited default scopes, or null if none are marked default.
+     */
+    public String getDefaultScopes() {
+        ScopeSet defaults = snapshot.defaults();
+        return defaults.isEmpty() ? null : format(defaults);
+    }
+
+    // Assigns the next free id on first sight of a name
+    private int intern(String name) {
+        Integer id = internedIds.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        int next = internedIds.size();
+        if (next == FAST_PATH_SCOPES) {
+            log.warn("Scope registry has interned more than {} scope names; scope sets holding '{}' "
+                    + "or later scopes take a slower path", FAST_PATH_SCOPES, name);
+        }
+        internedIds.put(name, next);
+        return next;
+    }
+
+    private record Snapshot(
+            Map<String, RegisteredScope> byName,
+            RegisteredScope[] byId,
+            ScopeSet all,
+            ScopeSet defaults) {
+
+        static final Snapshot EMPTY = new Snapshot(
+                Map.of(), new RegisteredScope[FAST_PATH_SCOPES], ScopeSet.EMPTY, ScopeSet.EMPTY);
+    }
+}
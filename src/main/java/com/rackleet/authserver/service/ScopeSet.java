@@ -0,0 +1,199 @@
+package com.rackleet.authserver.service;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of registered scopes, one bit per ScopeRegistry id.
+ *
+ * Subset checks, merges and differences are single long operations - no
+ * HashSets, no string splitting. Converting to and from the space-delimited
+ * wire format goes through ScopeRegistry (parse / format), which always
+ * emits names in id order so the serialized form is canonical.
+ *
+ * Ids 0-63 live in one long. A registry that has handed out more ids than
+ * that keeps the rest in an overflow array, and only sets that hold such
+ * an id pay for the slower word-by-word path.
+ */
+public final class ScopeSet {
+
+    public static final ScopeSet EMPTY = new ScopeSet(0);
+
+    // Ids 0-63
+    private final long bits;
+    // Ids 64 and up, 64 per word. Null when there are none - the common
+    // case - and never ends in a zero word, so equal sets have equal fields.
+    private final long[] overflow;
+
+    public ScopeSet(long bits) {
+        this(bits, null);
+    }
+
+    private ScopeSet(long bits, long[] overflow) {
+        this.bits = bits;
+        this.overflow = overflow;
+    }
+
+    public boolean isEmpty() {
+        return bits == 0 && overflow == null;
+    }
+
+    public int size() {
+        int size = Long.bitCount(bits);
+        if (overflow != null) {
+            for (long word : overflow) {
+                size += Long.bitCount(word);
+            }
+        }
+        return size;
+    }
+
+    public boolean contains(int scopeId) {
+        if (scopeId < Long.SIZE) {
+            return (bits & (1L << scopeId)) != 0;
+        }
+        int word = scopeId / Long.SIZE - 1;
+        return overflow != null && word < overflow.length && (overflow[word] & (1L << scopeId)) != 0;
+    }
+
+    /**
+     * True if every scope in other is also in this set.
+     */
+    public boolean containsAll(ScopeSet other) {
+        if ((other.bits & ~bits) != 0) {
+            return false;
+        }
+        if (other.overflow == null) {
+            return true;
+        }
+        for (int i = 0; i < other.overflow.length; i++) {
+            long mine = overflow != null && i < overflow.length ? overflow[i] : 0;
+            if ((other.overflow[i] & ~mine) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public ScopeSet union(ScopeSet other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (overflow == null && other.overflow == null) {
+            return new ScopeSet(bits | other.bits);
+        }
+        long[] longer = longer(overflow, other.overflow);
+        long[] merged = Arrays.copyOf(longer, longer.length);
+        long[] shorter = longer == overflow ? other.overflow : overflow;
+        if (shorter != null) {
+            for (int i = 0; i < shorter.length; i++) {
+                merged[i] |= shorter[i];
+            }
+        }
+        return new ScopeSet(bits | other.bits, merged);
+    }
+
+    /**
+     * The scopes in this set that are not in other.
+     */
+    public ScopeSet minus(ScopeSet other) {
+        if (overflow == null) {
+            return new ScopeSet(bits & ~other.bits);
+        }
+        long[] remaining = Arrays.copyOf(overflow, overflow.length);
+        if (other.overflow != null) {
+            for (int i = 0; i < Math.min(remaining.length, other.overflow.length); i++) {
+                remaining[i] &= ~other.overflow[i];
+            }
+        }
+        return new ScopeSet(bits & ~other.bits, trim(remaining));
+    }
+
+    /**
+     * The lowest id in the set that is at least from, or -1 if there is
+     * none. Walks the set the way BitSet.nextSetBit does.
+     */
+    public int nextId(int from) {
+        if (from < Long.SIZE) {
+            long rest = bits & (-1L << from);
+            if (rest != 0) {
+                return Long.numberOfTrailingZeros(rest);
+            }
+            from = Long.SIZE;
+        }
+        if (overflow == null) {
+            return -1;
+        }
+        for (int word = from / Long.SIZE - 1; word < overflow.length; word++) {
+            long rest = overflow[word];
+            if (word == from / Long.SIZE - 1) {
+                rest &= -1L << from;
+            }
+            if (rest != 0) {
+                return (word + 1) * Long.SIZE + Long.numberOfTrailingZeros(rest);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof ScopeSet other
+                && bits == other.bits && Arrays.equals(overflow, other.overflow);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bits) * 31 + Arrays.hashCode(overflow);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder ids = new StringBuilder("ScopeSet[");
+        for (int id = nextId(0); id >= 0; id = nextId(id + 1)) {
+            ids.append(ids.length() > "ScopeSet[".length() ? "," : "").append(id);
+        }
+        return ids.append(']').toString();
+    }
+
+    private static long[] longer(long[] a, long[] b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.length >= b.length ? a : b;
+    }
+
+    // Drops trailing zero words; null if nothing is left
+    private static long[] trim(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        return length == 0 ? null : length == words.length ? words : Arrays.copyOf(words, length);
+    }
+
+    /**
+     * Collects ids one at a time, for ScopeRegistry's parsers.
+     */
+    static final class Builder {
+
+        private long bits;
+        private long[] overflow;
+
+        Builder add(int scopeId) {
+            if (scopeId < Long.SIZE) {
+                bits |= 1L << scopeId;
+                return this;
+            }
+            int word = scopeId / Long.SIZE - 1;
+            if (overflow == null || word >= overflow.length) {
+                overflow = overflow == null ? new long[word + 1] : Arrays.copyOf(overflow, word + 1);
+            }
+            overflow[word] |= 1L << scopeId;
+            return this;
+        }
+
+        ScopeSet build() {
+            return overflow == null ? new ScopeSet(bits) : new ScopeSet(bits, trim(overflow));
+        }
+    }
+}
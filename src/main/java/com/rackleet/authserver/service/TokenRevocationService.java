@@ -0,0 +1,222 @@
+package com.rackleet.authserver.service;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.crypto.KeyManager;
+import com.rackleet.authserver.crypto.RefreshTokenCodec;
+import com.rackleet.authserver.dto.request.BulkRevocationRequest;
+import com.rackleet.authserver.dto.response.BulkRevocationResponse;
+import com.rackleet.authserver.exception.OAuthError;
+import com.rackleet.authserver.exception.OAuthException;
+import com.rackleet.authserver.repository.RefreshTokenFamilyRepository;
+import com.rackleet.authserver.repository.RevokedTokenRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Set-based token revocation, shared by /oauth2/revoke, reuse detection,
+ * consent revocation and the bulk revocation API.
+ *
+ * Every operation costs a fixed number of statements however many tokens
+ * it touches: one INSERT ... ON CONFLICT for access tokens, one UPDATE
+ * per refresh token selector, and one pg_notify for all of the revoked
+ * access tokens.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final RevocationIndex revocationIndex;
+    private final RevocationEventBus revocationEvents;
+    private final KeyManager keyManager;
+    private final RefreshTokenCodec refreshTokenCodec;
+    private final AuthServerProperties properties;
+
+    /**
+     * Revokes the listed tokens plus every refresh token matching the
+     * user and/or client - all limited to tokens issued to the calling
+     * client; listed tokens of other clients are skipped. Access tokens
+     * already issued to that user or client can't be enumerated - they
+     * are stateless - and stay valid until they expire unless listed
+     * explicitly.
+     */
+    @Transactional
+    public BulkRevocationResponse revoke(BulkRevocationRequest request, ClientPolicy client) {
+        List<String> tokens = request.getTokens() != null ? request.getTokens() : List.of();
+        if (tokens.isEmpty() && request.getUserId() == null && request.getClientId() == null) {
+            throw new OAuthException(OAuthError.INVALID_REQUEST,
+                    "At least one of tokens, userId or clientId is required", HttpStatus.BAD_REQUEST);
+        }
+
+        // Public clients prove nothing by presenting their id
+        if ("none".equals(client.getTokenEndpointAuthMethod())) {
+            throw new OAuthException(OAuthError.UNAUTHORIZED_CLIENT,
+                    "Bulk revocation requires client authentication", HttpStatus.FORBIDDEN);
+        }
+        if (request.getClientId() != null && !request.getClientId().equals(client.getClientId())) {
+            throw new OAuthException(OAuthError.UNAUTHORIZED_CLIENT,
+                    "Clients can only revoke their own tokens", HttpStatus.FORBIDDEN);
+        }
+
+        int maxTokens = properties.getRevocation().getMaxBulkTokens();
+        if (tokens.size() > maxTokens) {
+            throw new OAuthException(OAuthError.INVALID_REQUEST,
+                    "At most " + maxTokens + " tokens per request", HttpStatus.BAD_REQUEST);
+        }
+
+        // Sort the listed tokens into access tokens we signed and refresh
+        // tokens that pass the format checks; the rest can't exist
+        Map<String, Instant> accessTokens = new LinkedHashMap<>();
+        List<byte[]> refreshTokenHashes = new ArrayList<>();
+        for (String token : tokens) {
+            if (token == null || token.isBlank()) {
+                continue;
+            }
+            JWTClaimsSet claims = refreshTokenCodec.isRefreshToken(token) ? null : verifiedClaims(token);
+            if (claims != null && claims.getJWTID() != null && claims.getExpirationTime() != null) {
+                if (client.getClientId().equals(claims.getClaim("client_id"))) {
+                    accessTokens.put(claims.getJWTID(), claims.getExpirationTime().toInstant());
+                }
+            } else {
+                RefreshTokenCodec.Parsed parsed = refreshTokenCodec.parse(token);
+                if (parsed != null) {
+                    refreshTokenHashes.add(parsed.tokenHash());
+                }
+            }
+        }
+
+        List<TokenRevokedEvent> events = new ArrayList<>();
+        int accessRevoked = revokeAccessTokens(accessTokens, events);
+
+        int refreshRevoked = 0;
+        if (!refreshTokenHashes.isEmpty()) {
+            refreshRevoked += refreshTokenFamilyRepository.revokeAllByTokenHashIn(
+                    refreshTokenHashes, client.getClientId());
+        }
+        if (request.getUserId() != null) {
+            refreshRevoked += refreshTokenFamilyRepository.revokeAllForUserAndClient(
+                    request.getUserId(), client.getClientId());
+        } else if (request.getClientId() != null) {
+            refreshRevoked += refreshTokenFamilyRepository.revokeAllForClient(client.getClientId());
+        }
+
+        revocationEvents.publishAll(events);
+
+        log.info("Bulk revocation: {} access tokens, {} refresh tokens (user '{}', client '{}')",
+                accessRevoked, refreshRevoked, request.getUserId(), client.getClientId());
+        BulkRevocationResponse response = new BulkRevocationResponse();
+        response.setAccessTokensRevoked(accessRevoked);
+        response.setRefreshTokensRevoked(refreshRevoked);
+        return response;
+    }
+
+    /**
+     * Logout everywhere: revokes every refresh token the user holds, for
+     * every client, in one statement. The caller must have authenticated
+     * the user. As with revoke(), access tokens already issued stay valid
+     * until they expire.
+     */
+    @Transactional
+    public BulkRevocationResponse revokeAllForUser(Long userId) {
+        int refreshRevoked = refreshTokenFamilyRepository.revokeAllForUser(userId);
+
+        log.info("Logout everywhere: {} refresh tokens revoked for user '{}'", refreshRevoked, userId);
+        BulkRevocationResponse response = new BulkRevocationResponse();
+        response.setRefreshTokensRevoked(refreshRevoked);
+        return response;
+    }
+
+    /**
+     * Adds access tokens to the revocation list in one statement.
+     * Already-expired ones are skipped. Returns how many were newly revoked.
+     */
+    @Transactional
+    public int revokeAccessTokens(Map<String, Instant> expiryByJti) {
+        List<TokenRevokedEvent> events = new ArrayList<>();
+        int revoked = revokeAccessTokens(expiryByJti, events);
+        revocationEvents.publishAll(events);
+        return revoked;
+    }
+
+    /**
+     * Revokes every active refresh token a user holds for a client in one
+     * statement. Returns how many were revoked.
+     */
+    @Transactional
+    public int revokeRefreshTokens(Long userId, String clientId) {
+        return refreshTokenFamilyRepository.revokeAllForUserAndClient(userId, clientId);
+    }
+
+    private int revokeAccessTokens(Map<String, Instant> expiryByJti, List<TokenRevokedEvent> events) {
+        // An expired token is already as dead as revocation would make it,
+        // and its day's partition may be gone - nothing to record
+        Instant now = Instant.now();
+        Map<String, Instant> live = new LinkedHashMap<>();
+        expiryByJti.forEach((jti, expiresAt) -> {
+            if (expiresAt.isAfter(now)) {
+                live.put(jti, expiresAt);
+            }
+        });
+        if (live.isEmpty()) {
+            return 0;
+        }
+
+        List<String> inserted = revokedTokenRepository.insertAll(live);
+        Map<String, Instant> revoked = new LinkedHashMap<>();
+        for (String jti : inserted) {
+            Instant expiresAt = live.get(jti);
+            revoked.put(jti, expiresAt);
+            events.add(TokenRevokedEvent.accessToken(jti, expiresAt));
+        }
+        addToIndexAfterCommit(revoked);
+        return inserted.size();
+    }
+
+    // The index must never hold a revocation that rolled back. pg_notify
+    // is only delivered on commit already; the local index waits for it too.
+    private void addToIndexAfterCommit(Map<String, Instant> revoked) {
+        if (revoked.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            revoked.forEach(revocationIndex::add);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revoked.forEach(revocationIndex::add);
+            }
+        });
+    }
+
+    // Claims of a JWT we signed, or null for anything else
+    private JWTClaimsSet verifiedClaims(String token) {
+        try {
+            SignedJWT jwt = SignedJWT.parse(token);
+            return keyManager.verify(jwt) ? jwt.getJWTClaimsSet() : null;
+        } catch (ParseException | JOSEException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.rackleet.authserver.service;
+
+import java.time.Instant;
+
+/**
+ * A revocation made on some node, delivered to every node through
+ * RevocationEventBus and re-published as a Spring application event.
+ *
+ * Only access tokens: a refresh token is checked against its family row
+ * on every use, so no node holds anything about it that could go stale.
+ *
+ * @param id        the revoked token's jti
+ * @param expiresAt when the revoked access token expires
+ */
+public record TokenRevokedEvent(Type type, String id, Instant expiresAt) {
+
+    public enum Type {
+        ACCESS_TOKEN
+    }
+
+    public static TokenRevokedEvent accessToken(String jti, Instant expiresAt) {
+        return new TokenRevokedEvent(Type.ACCESS_TOKEN, jti, expiresAt);
+    }
+
+    /**
+     * Wire form for a NOTIFY payload: "TYPE id [expiresAtEpochSecond]".
+     * jtis never contain spaces.
+     */
+    String encode() {
+        return expiresAt != null
+                ? type + " " + id + " " + expiresAt.getEpochSecond()
+                : type + " " + id;
+    }
+
+    static TokenRevokedEvent decode(String payload) {
+        String[] parts = payload.split(" ");
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("Malformed revocation event: " + payload);
+        }
+        Instant expiresAt = parts.length == 3 ? Instant.ofEpochSecond(Long.parseLong(parts[2])) : null;
+        return new TokenRevokedEvent(Type.valueOf(parts[0]), parts[1], expiresAt);
+    }
+}
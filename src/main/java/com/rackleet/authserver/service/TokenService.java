@@ -2,28 +2,27 @@
 package com.rackleet.authserver.service;
 
 import com.nimbusds.jose.*;
-import com.nimbusds.jose.crypto.RSASSASigner;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.crypto.AuthorizationCodeCodec;
 import com.rackleet.authserver.crypto.HashUtils;
 import com.rackleet.authserver.crypto.KeyManager;
+import com.rackleet.authserver.crypto.RefreshTokenCodec;
 import com.rackleet.authserver.dto.request.TokenRequest;
 import com.rackleet.authserver.entity.AuthorizationCode;
-import com.rackleet.authserver.entity.OAuthClient;
-import com.rackleet.authserver.entity.RefreshToken;
-import com.rackleet.authserver.entity.RevokedToken;
+import com.rackleet.authserver.entity.RefreshTokenFamily;
 import com.rackleet.authserver.exception.OAuthError;
 import com.rackleet.authserver.exception.OAuthException;
 import com.rackleet.authserver.repository.AuthorizationCodeRepository;
-import com.rackleet.authserver.repository.RefreshTokenRepository;
-import com.rackleet.authserver.repository.RevokedTokenRepository;
-import com.rackleet.authserver.util.JsonUtils;
+import com.rackleet.authserver.repository.RefreshTokenFamilyRepository;
+import com.rackleet.authserver.util.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -37,19 +36,28 @@ import java.util.*;
 @Slf4j
 public class TokenService {
 
-    // The issuer claim in JWTs — must match your discovery document (Phase 5)
-    private static final String ISSUER = "http://localhost:9000";
-
     private final AuthorizationCodeRepository authCodeRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
-    private final RevokedTokenRepository revokedTokenRepository;
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final RevocationIndex revocationIndex;
+    private final TokenRevocationService tokenRevocationService;
+    private final IntrospectionCache introspectionCache;
     private final KeyManager keyManager;
+    private final RefreshTokenCodec refreshTokenCodec;
+    private final AuthorizationCodeCodec authorizationCodeCodec;
+    private final ScopeRegistry scopeRegistry;
+    private final AuthServerProperties properties;
+
+    // Concurrent introspections of the same token share one verification
+    // and one database lookup. Keyed by token digest.
+    private final SingleFlight<String, Map<String, Object>> introspections = new SingleFlight<>();
 
     // ── Authorization Code Exchange ─────────────────────────────
 
-    @Transactional
+    // Reuse detection revokes tokens and then fails the request - the
+    // revocation must still commit
+    @Transactional(noRollbackFor = OAuthException.class)
     public Map<String, Object> exchangeAuthorizationCode(
-            TokenRequest request, OAuthClient client) {
+            TokenRequest request, ClientPolicy client) {
 
         if (request.getCode() == null || request.getCode().isBlank()) {
             throw new OAuthException(OAuthError.INVALID_REQUEST,
@@ -61,19 +69,47 @@ public class TokenService {
                     "redirect_uri is required", HttpStatus.BAD_REQUEST);
         }
 
-        String codeHash = HashUtils.sha256(request.getCode());
-        AuthorizationCode authCode = authCodeRepository.findByCodeHash(codeHash)
-                .orElseThrow(() -> new OAuthException(OAuthError.INVALID_GRANT,
-                        "Invalid authorization code", HttpStatus.BAD_REQUEST));
+        AuthorizationCode authCode = authorizationCodeCodec.isSealed(request.getCode())
+                ? redeemEncryptedCode(request, client)
+                : redeemStoredCode(request, client);
 
-        if (authCode.isUsed()) {
-            log.warn("Authorization code reuse detected for client '{}'. "
-                    + "Revoking all associated tokens.", client.getClientId());
-            // Revoke all refresh tokens for this user/client pair
-            revokeAllTokensForUserAndClient(authCode.getClientId(), authCode.getUserId());
+        log.debug("Authorization code exchanged for client '{}', user '{}'",
+                client.getClientId(), authCode.getUserId());
+
+        // Only issue a refresh token if the client is allowed
+        String refreshToken = client.allowsGrantType("refresh_token")
+                ? startRefreshTokenFamily(authCode.getUserId(), authCode.getScope(), client)
+                : null;
+
+        return buildTokenResponse(authCode.getUserId(), authCode.getScope(), client, refreshToken);
+    }
+
+    private AuthorizationCode redeemStoredCode(TokenRequest request, ClientPolicy client) {
+        // Redeem: mark the code used in the same statement that checks it,
+        // so a code fired from several threads is only ever exchanged once
+        byte[] codeHash = HashUtils.sha256(request.getCode());
+        String codeChallenge = request.getCodeVerifier() != null && !request.getCodeVerifier().isBlank()
+                ? HashUtils.s256Challenge(request.getCodeVerifier())
+                : null;
+        return authCodeRepository
+                .redeem(codeHash, client.getClientId(), request.getRedirectUri(),
+                        codeChallenge, Instant.now())
+                .orElseThrow(() -> rejectAuthorizationCode(codeHash, request, client));
+    }
+
+    /**
+     * Redeems a code whose grant is sealed inside it. The checks are the
+     * ones rejectAuthorizationCode reports, except that "already used"
+     * comes last: recording the redemption is the final step, so a
+     * request that fails any other check leaves the code redeemable.
+     */
+    private AuthorizationCode redeemEncryptedCode(TokenRequest request, ClientPolicy client) {
+        AuthorizationCodeCodec.Opened opened = authorizationCodeCodec.open(request.getCode());
+        if (opened == null) {
             throw new OAuthException(OAuthError.INVALID_GRANT,
-                    "Authorization code has already been used", HttpStatus.BAD_REQUEST);
+                    "Invalid authorization code", HttpStatus.BAD_REQUEST);
         }
+        AuthorizationCode authCode = opened.grant();
 
         if (authCode.isExpired()) {
             throw new OAuthException(OAuthError.INVALID_GRANT,
@@ -96,13 +132,15 @@ public class TokenService {
             validatePkce(request.getCodeVerifier(), authCode);
         }
 
-        authCode.setUsed(true);
-        authCodeRepository.save(authCode);
-
-        log.debug("Authorization code exchanged for client '{}', user '{}'",
-                client.getClientId(), authCode.getUserId());
-
-        return buildTokenResponse(authCode.getUserId(), authCode.getScope(), client, null);
+        // Single use: only the first insert of this code's id succeeds
+        if (authCodeRepository.markRedeemed(opened.codeId(), authCode.getExpiresAt()) == 0) {
+            log.warn("Authorization code reuse detected for client '{}'. "
+                    + "Revoking all associated tokens.", client.getClientId());
+            revokeAllTokensForUserAndClient(authCode.getClientId(), authCode.getUserId());
+            throw new OAuthException(OAuthError.INVALID_GRANT,
+                    "Authorization code has already been used", HttpStatus.BAD_REQUEST);
+        }
+        return authCode;
     }
 
     // ── Refresh Token Grant ─────────────────────────────────────
@@ -111,67 +149,56 @@ public class TokenService {
      * Exchanges a refresh token for a new token pair.
      * Implements refresh token rotation with automatic reuse detection.
      */
-    @Transactional
+    @Transactional(noRollbackFor = OAuthException.class)
     public Map<String, Object> refreshAccessToken(
-            TokenRequest request, OAuthClient client) {
+            TokenRequest request, ClientPolicy client) {
 
         if (request.getRefreshToken() == null || request.getRefreshToken().isBlank()) {
             throw new OAuthException(OAuthError.INVALID_REQUEST,
                     "refresh_token is required", HttpStatus.BAD_REQUEST);
         }
 
-        // Look up the refresh token by its hash
-        String tokenHash = HashUtils.sha256(request.getRefreshToken());
-        RefreshToken existingToken = refreshTokenRepository.findByTokenHash(tokenHash)
-                .orElseThrow(() -> new OAuthException(OAuthError.INVALID_GRANT,
-                        "Invalid refresh token", HttpStatus.BAD_REQUEST));
-
-        // Reuse detection: if a revoked token is presented, the entire
-        // family has been compromised. Revoke everything.
-        if (existingToken.isRevoked()) {
-            log.warn("Revoked refresh token presented for client '{}'. "
-                    + "Possible token theft. Revoking entire token family.",
-                    client.getClientId());
-            revokeTokenFamily(existingToken);
+        // A token we can't have issued goes no further than its MAC check
+        RefreshTokenCodec.Parsed presented = refreshTokenCodec.parse(request.getRefreshToken());
+        if (presented == null) {
             throw new OAuthException(OAuthError.INVALID_GRANT,
-                    "Refresh token has been revoked", HttpStatus.BAD_REQUEST);
-        }
-
-        if (existingToken.isExpired()) {
-            throw new OAuthException(OAuthError.INVALID_GRANT,
-                    "Refresh token has expired", HttpStatus.BAD_REQUEST);
+                    "Invalid refresh token", HttpStatus.BAD_REQUEST);
         }
 
-        // Must belong to the authenticated client
-        if (!existingToken.getClientId().equals(client.getClientId())) {
-            throw new OAuthException(OAuthError.INVALID_GRANT,
-                    "Refresh token was not issued to this client",
-                    HttpStatus.BAD_REQUEST);
-        }
+        // Rotate: swap the family's current token for a new one in the same
+        // statement that checks it, so two concurrent refreshes can't both
+        // pass the check. A legacy token is swapped for an rt_ one.
+        byte[] newSecret = refreshTokenCodec.newSecret();
+        byte[] newTokenHash = HashUtils.sha256(newSecret);
+        Instant now = Instant.now();
+        Instant newExpiresAt = now.plus(client.getRefreshTokenTtlSeconds(), ChronoUnit.SECONDS);
+        RefreshTokenFamily family = (presented.familyId() != null
+                ? refreshTokenFamilyRepository.rotate(presented.familyId(), presented.tokenHash(),
+                        client.getClientId(), newTokenHash, newExpiresAt, now)
+                : refreshTokenFamilyRepository.rotate(presented.tokenHash(),
+                        client.getClientId(), newTokenHash, newExpiresAt, now))
+                .orElseThrow(() -> rejectRefreshToken(presented, client));
+        String newRefreshToken = refreshTokenCodec.encode(family.getId(), newSecret);
 
         // Handle scope narrowing: if the request includes a scope parameter,
         // it must be a subset of the original scope. Never expand.
-        String grantedScope = existingToken.getScope();
+        String grantedScope = family.getScope();
         if (request.getScope() != null && !request.getScope().isBlank()) {
-            grantedScope = validateScopeNarrowing(request.getScope(), existingToken.getScope());
+            try {
+                grantedScope = validateScopeNarrowing(request.getScope(), family.getScope());
+            } catch (OAuthException e) {
+                // A bad scope must not cost the client its refresh token
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                throw e;
+            }
+            // The narrower scope sticks for the rest of the family
+            family.setScope(grantedScope);
         }
 
-        // Rotate: revoke the old token
-        existingToken.setRevoked(true);
-        refreshTokenRepository.save(existingToken);
-
         log.debug("Refresh token rotated for client '{}', user '{}'",
-                client.getClientId(), existingToken.getUserId());
-
-        // Determine the family parent for the new token.
-        // If the existing token has a parent, use that same parent.
-        // If it doesn't (it's the first in the family), use its own hash.
-        String familyParent = existingToken.getParentTokenHash() != null
-                ? existingToken.getParentTokenHash()
-                : existingToken.getTokenHash();
+                client.getClientId(), family.getUserId());
 
-        return buildTokenResponse(
-                existingToken.getUserId(), grantedScope, client, familyParent);
+        return buildTokenResponse(family.getUserId(), grantedScope, client, newRefreshToken);
     }
 
     // ── Token Revocation (RFC 7009) ─────────────────────────────
@@ -183,7 +210,13 @@ public class TokenService {
      * This prevents token scanning attacks.
      */
     @Transactional
-    public void revokeToken(String token, String tokenTypeHint, OAuthClient client) {
+    public void revokeToken(String token, String tokenTypeHint, ClientPolicy client) {
+        // The prefix says what it is - never worth a JWT parse
+        if (refreshTokenCodec.isRefreshToken(token)) {
+            tryRevokeRefreshToken(token, client);
+            return;
+        }
+
         // Try refresh token first if hinted, otherwise try both
         if ("refresh_token".equals(tokenTypeHint)) {
             if (tryRevokeRefreshToken(token, client))
@@ -205,13 +238,97 @@ public class TokenService {
      * Used by resource servers to validate tokens.
      */
     public Map<String, Object> introspectToken(String token, String tokenTypeHint) {
+        if (refreshTokenCodec.isRefreshToken(token)) {
+            // Never cached and never a JWT. Forged ones stop at the MAC
+            // check; genuine ones share a lookup by their stored hash.
+            RefreshTokenCodec.Parsed parsed = refreshTokenCodec.parse(token);
+            if (parsed == null) {
+                return Map.of("active", false);
+            }
+            return introspections.execute(HashUtils.toHex(parsed.tokenHash()),
+                    () -> Objects.requireNonNullElse(tryIntrospectRefreshToken(parsed), Map.of("active", false)));
+        }
+
+        // Digest in hex is the cache key and single-flight key
+        String key = HashUtils.toHex(HashUtils.sha256(token));
+
+        // Already verified and still active - skip parsing and verification
+        Map<String, Object> cached = introspectionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        // The hint doesn't change the answer, so it isn't part of the key
+        return introspections.execute(key, () -> introspect(token, key));
+    }
+
+    /**
+     * Introspects many tokens at once and returns one result per token, in
+     * request order. Access tokens are answered from memory (cache, key
+     * set, revocation index), so the only database work is a single
+     * IN query for whatever is left over as a possible refresh token.
+     */
+    public List<Map<String, Object>> introspectTokens(List<String> tokens) {
+        // Keyed by hex digest, so a token repeated in the batch is handled once
+        Map<String, Map<String, Object>> resultsByKey = new HashMap<>();
+        // key → the token_hash its refresh token family would hold
+        Map<String, byte[]> unresolved = new HashMap<>();
+        List<String> keys = new ArrayList<>(tokens.size());
+
+        for (String token : tokens) {
+            String key = HashUtils.toHex(HashUtils.sha256(token));
+            keys.add(key);
+            if (resultsByKey.containsKey(key) || unresolved.containsKey(key)) {
+                continue;
+            }
+
+            Map<String, Object> result = null;
+            if (!refreshTokenCodec.isRefreshToken(token)) {
+                result = introspectionCache.get(key);
+                if (result == null) {
+                    result = tryIntrospectAccessToken(token, key);
+                }
+            }
+            if (result != null) {
+                resultsByKey.put(key, result);
+                continue;
+            }
+            // Only tokens that pass the format checks reach the query
+            RefreshTokenCodec.Parsed parsed = refreshTokenCodec.parse(token);
+            if (parsed != null) {
+                unresolved.put(key, parsed.tokenHash());
+            }
+        }
+
+        if (!unresolved.isEmpty()) {
+            Map<String, RefreshTokenFamily> familiesByHash = new HashMap<>();
+            for (RefreshTokenFamily rt : refreshTokenFamilyRepository.findByTokenHashIn(unresolved.values())) {
+                familiesByHash.put(HashUtils.toHex(rt.getTokenHash()), rt);
+            }
+            unresolved.forEach((key, tokenHash) -> {
+                RefreshTokenFamily rt = familiesByHash.get(HashUtils.toHex(tokenHash));
+                if (rt != null) {
+                    resultsByKey.put(key, describeRefreshToken(rt));
+                }
+            });
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(tokens.size());
+        for (String key : keys) {
+            results.add(resultsByKey.getOrDefault(key, Map.of("active", false)));
+        }
+        return results;
+    }
+
+    private Map<String, Object> introspect(String token, String key) {
         // Try as JWT access token first
-        Map<String, Object> result = tryIntrospectAccessToken(token);
+        Map<String, Object> result = tryIntrospectAccessToken(token, key);
         if (result != null)
             return result;
 
-        // Try as refresh token
-        result = tryIntrospectRefreshToken(token);
+        // Try as legacy refresh token, if those are still accepted
+        RefreshTokenCodec.Parsed parsed = refreshTokenCodec.parse(token);
+        result = parsed != null ? tryIntrospectRefreshToken(parsed) : null;
         if (result != null)
             return result;
 
@@ -224,20 +341,18 @@ public class TokenService {
     /**
      * Generates a signed JWT access token with standard claims.
      */
-    private String generateAccessToken(Long userId, String scope, OAuthClient client) {
-        RSAKey signingKey = keyManager.getSigningKey();
-
+    private String generateAccessToken(Long userId, String scope, ClientPolicy client) {
         // Every JWT gets a unique ID for revocation tracking
-        String jti = UUID.randomUUID().toString();
+        String jti = HashUtils.randomUuid().toString();
 
         Instant now = Instant.now();
         Instant expiration = now.plus(client.getAccessTokenTtlSeconds(), ChronoUnit.SECONDS);
 
         // Build the claims per RFC 9068 (JWT Profile for OAuth 2.0 Access Tokens)
         JWTClaimsSet claims = new JWTClaimsSet.Builder()
-                .issuer(ISSUER) // iss — your auth server
+                .issuer(properties.getIssuer()) // iss — your auth server, as in the discovery document
                 .subject(String.valueOf(userId)) // sub — the resource owner
-                .audience(ISSUER) // aud — intended recipient(s)
+                .audience(properties.getIssuer()) // aud — intended recipient(s)
                 .jwtID(jti) // jti — unique token identifier
                 .issueTime(Date.from(now)) // iat — when it was issued
                 .notBeforeTime(Date.from(now)) // nbf — valid from now
@@ -246,58 +361,45 @@ public class TokenService {
                 .claim("scope", scope) // granted permissions
                 .build();
 
-        // Build the JWT header with algorithm and key ID
-        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256)
-                .keyID(signingKey.getKeyID()) // kid — tells verifiers which key to use
-                .type(JOSEObjectType.JWT)
-                .build();
-
-        SignedJWT signedJWT = new SignedJWT(header, claims);
-
         try {
-            // Sign with the private key
-            signedJWT.sign(new RSASSASigner(signingKey));
+            // Sign with the client's algorithm - header carries alg and kid
+            return keyManager.sign(claims, client.getAccessTokenSigningAlg()).serialize();
         } catch (JOSEException e) {
             throw new RuntimeException("Failed to sign JWT", e);
         }
-
-        return signedJWT.serialize();
     }
 
     /**
-     * Generates an opaque refresh token stored as a SHA-256 hash.
-     * Returns the plaintext token — the hash is stored in the database.
+     * Generates a refresh token and starts a new family for it.
+     * Returns the plaintext token — only its secret's hash is stored in the
+     * database.
      */
-    private String generateRefreshToken(
-            Long userId, String scope, OAuthClient client, String parentTokenHash) {
-
-        String rawToken = HashUtils.generateRandomToken();
-        String tokenHash = HashUtils.sha256(rawToken);
-
-        RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setTokenHash(tokenHash);
-        refreshToken.setClientId(client.getClientId());
-        refreshToken.setUserId(userId);
-        refreshToken.setScope(scope);
-        refreshToken.setExpiresAt(
+    private String startRefreshTokenFamily(Long userId, String scope, ClientPolicy client) {
+        byte[] secret = refreshTokenCodec.newSecret();
+
+        RefreshTokenFamily family = new RefreshTokenFamily();
+        family.setTokenHash(HashUtils.sha256(secret));
+        family.setClientId(client.getClientId());
+        family.setUserId(userId);
+        family.setScope(scope);
+        family.setExpiresAt(
                 Instant.now().plus(client.getRefreshTokenTtlSeconds(), ChronoUnit.SECONDS));
-        refreshToken.setParentTokenHash(parentTokenHash);
 
-        refreshTokenRepository.save(refreshToken);
+        refreshTokenFamilyRepository.save(family);
 
-        // Return plaintext to the client — only time it's available
-        return rawToken;
+        // Return plaintext to the client — only time it's available.
+        // The token names its family, so it can only be built once saved.
+        return refreshTokenCodec.encode(family.getId(), secret);
     }
 
     // ── Token Response Builder ───────────────────────────────────
 
     /**
      * Builds the complete token response.
-     * parentTokenHash is null for initial grants (auth code exchange)
-     * and set for refresh token rotation (to track the family).
+     * refreshToken is null when the client may not use refresh tokens.
      */
     private Map<String, Object> buildTokenResponse(
-            Long userId, String scope, OAuthClient client, String parentTokenHash) {
+            Long userId, String scope, ClientPolicy client, String refreshToken) {
 
         String accessToken = generateAccessToken(userId, scope, client);
 
@@ -306,11 +408,7 @@ public class TokenService {
         response.put("token_type", "Bearer");
         response.put("expires_in", client.getAccessTokenTtlSeconds());
 
-        // Only issue a refresh token if the client is allowed
-        List<String> allowedGrants = JsonUtils.fromJson(client.getAllowedGrantTypes());
-        if (allowedGrants.contains("refresh_token")) {
-            String refreshToken = generateRefreshToken(
-                    userId, scope, client, parentTokenHash);
+        if (refreshToken != null) {
             response.put("refresh_token", refreshToken);
         }
 
@@ -336,7 +434,7 @@ public class TokenService {
                     "Unsupported code_challenge_method", HttpStatus.BAD_REQUEST);
         }
 
-        String computedChallenge = computeS256Challenge(codeVerifier);
+        String computedChallenge = HashUtils.s256Challenge(codeVerifier);
 
         if (!MessageDigest.isEqual(
                 computedChallenge.getBytes(StandardCharsets.UTF_8),
@@ -348,17 +446,6 @@ public class TokenService {
         }
     }
 
-    private String computeS256Challenge(String codeVerifier) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(
-                    codeVerifier.getBytes(StandardCharsets.US_ASCII));
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
-        } catch (Exception e) {
-            throw new RuntimeException("SHA-256 not available", e);
-        }
-    }
-
     // ── Scope Narrowing ─────────────────────────────────────────
 
     /**
@@ -366,37 +453,43 @@ public class TokenService {
      * You can reduce scope on refresh, never expand.
      */
     private String validateScopeNarrowing(String requestedScope, String originalScope) {
-        Set<String> original = new HashSet<>(Arrays.asList(originalScope.split(" ")));
-        Set<String> requested = new HashSet<>(Arrays.asList(requestedScope.split(" ")));
-
-        for (String scope : requested) {
-            if (!original.contains(scope)) {
-                throw new OAuthException(OAuthError.INVALID_SCOPE,
-                        "Cannot expand scope during refresh. "
-                                + "Requested scope '" + scope + "' was not in the original grant.",
-                        HttpStatus.BAD_REQUEST);
-            }
+        // Unregistered names can never have been granted
+        List<String> unknown = scopeRegistry.findUnknown(requestedScope);
+        ScopeSet requested = scopeRegistry.parse(requestedScope);
+        ScopeSet expanded = requested.minus(scopeRegistry.parse(originalScope));
+
+        if (!unknown.isEmpty() || !expanded.isEmpty()) {
+            String scope = !unknown.isEmpty()
+                    ? unknown.get(0)
+                    : scopeRegistry.namesOf(expanded).get(0);
+            throw new OAuthException(OAuthError.INVALID_SCOPE,
+                    "Cannot expand scope during refresh. "
+                            + "Requested scope '" + scope + "' was not in the original grant.",
+                    HttpStatus.BAD_REQUEST);
         }
 
-        // Return the narrowed scope as a space-delimited string
-        return requestedScope;
+        // Return the narrowed scope in canonical order
+        return scopeRegistry.format(requested);
     }
 
     // ── Revocation Helpers ──────────────────────────────────────
 
-    private boolean tryRevokeRefreshToken(String token, OAuthClient client) {
-        String tokenHash = HashUtils.sha256(token);
-        Optional<RefreshToken> found = refreshTokenRepository.findByTokenHash(tokenHash);
+    private boolean tryRevokeRefreshToken(String token, ClientPolicy client) {
+        RefreshTokenCodec.Parsed parsed = refreshTokenCodec.parse(token);
+        if (parsed == null) {
+            return false;
+        }
+        Optional<RefreshTokenFamily> found = findCurrentFamily(parsed);
 
         if (found.isPresent()) {
-            RefreshToken rt = found.get();
+            RefreshTokenFamily family = found.get();
             // Only the client that was issued the token can revoke it
-            if (!rt.getClientId().equals(client.getClientId())) {
+            if (!family.getClientId().equals(client.getClientId())) {
                 // Silently ignore — don't reveal that the token exists
                 return true;
             }
-            rt.setRevoked(true);
-            refreshTokenRepository.save(rt);
+            // The current token is the family's only live one
+            refreshTokenFamilyRepository.revokeFamily(family.getId());
             log.debug("Refresh token revoked for client '{}'", client.getClientId());
             return true;
         }
@@ -406,39 +499,130 @@ public class TokenService {
     private boolean tryRevokeAccessToken(String token) {
         try {
             SignedJWT jwt = SignedJWT.parse(token);
+
+            // Only tokens we signed go on the list - every entry is held in
+            // memory on every node until the token expires
+            if (!keyManager.verify(jwt)) {
+                return false;
+            }
+
             String jti = jwt.getJWTClaimsSet().getJWTID();
             Date expiration = jwt.getJWTClaimsSet().getExpirationTime();
 
             if (jti != null && expiration != null) {
-                // Only add to revocation list if not already there
-                if (!revokedTokenRepository.existsByJti(jti)) {
-                    RevokedToken revoked = new RevokedToken();
-                    revoked.setJti(jti);
-                    revoked.setExpiresAt(expiration.toInstant());
-                    revokedTokenRepository.save(revoked);
+                if (!expiration.toInstant().isAfter(Instant.now())) {
+                    return true; // expired - nothing left to revoke
+                }
+                // Insert-if-absent in one statement; already revoked is a no-op
+                if (tokenRevocationService.revokeAccessTokens(Map.of(jti, expiration.toInstant())) > 0) {
                     log.debug("Access token revoked, jti '{}'", jti);
                 }
                 return true;
             }
-        } catch (ParseException e) {
+        } catch (ParseException | JOSEException e) {
             // Not a valid JWT — might be a refresh token
         }
         return false;
     }
 
     /**
-     * Revokes all tokens in a refresh token family.
-     * Triggered by reuse detection — if someone presents a revoked token,
-     * the whole chain is compromised.
+     * Works out why redemption claimed nothing, in the order the checks
+     * have always been reported. Failure path only.
      */
-    private void revokeTokenFamily(RefreshToken compromisedToken) {
-        // Determine the family root
-        String familyParent = compromisedToken.getParentTokenHash() != null
-                ? compromisedToken.getParentTokenHash()
-                : compromisedToken.getTokenHash();
-
-        int revoked = refreshTokenRepository.revokeTokenFamily(familyParent);
-        log.warn("Revoked {} tokens in family due to reuse detection", revoked);
+    private OAuthException rejectAuthorizationCode(
+            byte[] codeHash, TokenRequest request, ClientPolicy client) {
+
+        AuthorizationCode authCode = authCodeRepository.findByCodeHash(codeHash).orElse(null);
+
+        if (authCode == null) {
+            return new OAuthException(OAuthError.INVALID_GRANT,
+                    "Invalid authorization code", HttpStatus.BAD_REQUEST);
+        }
+
+        if (authCode.isUsed()) {
+            log.warn("Authorization code reuse detected for client '{}'. "
+                    + "Revoking all associated tokens.", client.getClientId());
+            // Revoke all refresh tokens for this user/client pair
+            revokeAllTokensForUserAndClient(authCode.getClientId(), authCode.getUserId());
+            return new OAuthException(OAuthError.INVALID_GRANT,
+                    "Authorization code has already been used", HttpStatus.BAD_REQUEST);
+        }
+
+        if (authCode.isExpired()) {
+            return new OAuthException(OAuthError.INVALID_GRANT,
+                    "Authorization code has expired", HttpStatus.BAD_REQUEST);
+        }
+
+        if (!authCode.getClientId().equals(client.getClientId())) {
+            return new OAuthException(OAuthError.INVALID_GRANT,
+                    "Authorization code was not issued to this client",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        if (!authCode.getRedirectUri().equals(request.getRedirectUri())) {
+            return new OAuthException(OAuthError.INVALID_GRANT,
+                    "redirect_uri does not match the authorization request",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        if (authCode.getCodeChallenge() != null) {
+            validatePkce(request.getCodeVerifier(), authCode);
+        }
+
+        // Only reachable if the row changed between the update and this read
+        return new OAuthException(OAuthError.INVALID_GRANT,
+                "Invalid authorization code", HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Works out why rotation claimed nothing. Only runs on the failure
+     * path, so a successful refresh stays a single statement.
+     */
+    private OAuthException rejectRefreshToken(RefreshTokenCodec.Parsed presented, ClientPolicy client) {
+        RefreshTokenFamily family = findCurrentFamily(presented).orElse(null);
+
+        if (family == null) {
+            // Reuse detection: a token that has already been rotated away
+            // is presented again, so the family has been compromised.
+            // Revoke everything.
+            family = findRotatedFamily(presented).orElse(null);
+            if (family == null) {
+                return new OAuthException(OAuthError.INVALID_GRANT,
+                        "Invalid refresh token", HttpStatus.BAD_REQUEST);
+            }
+            log.warn("Rotated-out refresh token presented for client '{}'. "
+                    + "Possible token theft. Revoking entire token family.",
+                    client.getClientId());
+            revokeTokenFamily(family);
+            return new OAuthException(OAuthError.INVALID_GRANT,
+                    "Refresh token has been revoked", HttpStatus.BAD_REQUEST);
+        }
+
+        if (family.isRevoked()) {
+            return new OAuthException(OAuthError.INVALID_GRANT,
+                    "Refresh token has been revoked", HttpStatus.BAD_REQUEST);
+        }
+
+        if (family.isExpired()) {
+            return new OAuthException(OAuthError.INVALID_GRANT,
+                    "Refresh token has expired", HttpStatus.BAD_REQUEST);
+        }
+
+        // Live and unrevoked, so it must belong to another client
+        return new OAuthException(OAuthError.INVALID_GRANT,
+                "Refresh token was not issued to this client",
+                HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Revokes a refresh token family - one row, however many times it
+     * has rotated. Triggered by reuse detection — if someone presents a
+     * rotated-out token, the whole chain is compromised.
+     */
+    private void revokeTokenFamily(RefreshTokenFamily family) {
+        if (refreshTokenFamilyRepository.revokeFamily(family.getId()) > 0) {
+            log.warn("Revoked token family {} due to reuse detection", family.getId());
+        }
     }
 
     /**
@@ -446,14 +630,30 @@ public class TokenService {
      * Called when an authorization code is reused.
      */
     private void revokeAllTokensForUserAndClient(String clientId, Long userId) {
-        List<RefreshToken> tokens = refreshTokenRepository
-                .findByClientIdAndUserIdAndRevokedFalse(clientId, userId);
-        for (RefreshToken token : tokens) {
-            token.setRevoked(true);
-            refreshTokenRepository.save(token);
-        }
+        int revoked = tokenRevocationService.revokeRefreshTokens(userId, clientId);
         log.warn("Revoked {} refresh tokens for client '{}', user '{}' "
-                + "due to authorization code reuse", tokens.size(), clientId, userId);
+                + "due to authorization code reuse", revoked, clientId, userId);
+    }
+
+    // ── Refresh Token Lookups ───────────────────────────────────
+
+    // The family this token is the current one of. An rt_ token names its
+    // family; a legacy one can only be found by hash.
+    private Optional<RefreshTokenFamily> findCurrentFamily(RefreshTokenCodec.Parsed token) {
+        if (token.familyId() == null) {
+            return refreshTokenFamilyRepository.findByTokenHash(token.tokenHash());
+        }
+        return refreshTokenFamilyRepository.findById(token.familyId())
+                .filter(family -> MessageDigest.isEqual(family.getTokenHash(), token.tokenHash()));
+    }
+
+    // The family this token was rotated out of, if it was the last one
+    private Optional<RefreshTokenFamily> findRotatedFamily(RefreshTokenCodec.Parsed token) {
+        if (token.familyId() == null) {
+            return refreshTokenFamilyRepository.findByPreviousTokenHash(token.tokenHash());
+        }
+        return refreshTokenFamilyRepository.findById(token.familyId())
+                .filter(family -> MessageDigest.isEqual(family.getPreviousTokenHash(), token.tokenHash()));
     }
 
     // ── Introspection Helpers ───────────────────────────────────
@@ -462,19 +662,12 @@ public class TokenService {
      * Attempts to introspect a token as a JWT access token.
      * Verifies the signature, expiration, and revocation status.
      */
-    private Map<String, Object> tryIntrospectAccessToken(String token) {
+    private Map<String, Object> tryIntrospectAccessToken(String token, String key) {
         try {
             SignedJWT jwt = SignedJWT.parse(token);
 
             // Verify the signature using the key identified by kid
-            String kid = jwt.getHeader().getKeyID();
-            RSAKey key = keyManager.getKeyById(kid);
-            if (key == null)
-                return null;
-
-            boolean signatureValid = jwt.verify(
-                    new com.nimbusds.jose.crypto.RSASSAVerifier(key.toPublicJWK()));
-            if (!signatureValid)
+            if (!keyManager.verify(jwt))
                 return null;
 
             JWTClaimsSet claims = jwt.getJWTClaimsSet();
@@ -485,9 +678,9 @@ public class TokenService {
                 return Map.of("active", false);
             }
 
-            // Check revocation list
+            // Check revocation list - in memory, no database round trip
             if (claims.getJWTID() != null
-                    && revokedTokenRepository.existsByJti(claims.getJWTID())) {
+                    && revocationIndex.isRevoked(claims.getJWTID())) {
                 return Map.of("active", false);
             }
 
@@ -505,6 +698,7 @@ public class TokenService {
                 result.put("jti", claims.getJWTID());
             }
 
+            introspectionCache.put(key, claims.getJWTID(), claims.getExpirationTime().toInstant(), result);
             return result;
 
         } catch (ParseException | JOSEException e) {
@@ -516,15 +710,16 @@ public class TokenService {
     /**
      * Attempts to introspect a token as a refresh token.
      */
-    private Map<String, Object> tryIntrospectRefreshToken(String token) {
-        String tokenHash = HashUtils.sha256(token);
-        Optional<RefreshToken> found = refreshTokenRepository.findByTokenHash(tokenHash);
+    private Map<String, Object> tryIntrospectRefreshToken(RefreshTokenCodec.Parsed parsed) {
+        Optional<RefreshTokenFamily> found = findCurrentFamily(parsed);
 
         if (found.isEmpty())
             return null;
 
-        RefreshToken rt = found.get();
+        return describeRefreshToken(found.get());
+    }
 
+    private Map<String, Object> describeRefreshToken(RefreshTokenFamily rt) {
         if (rt.isRevoked() || rt.isExpired()) {
             return Map.of("active", false);
         }
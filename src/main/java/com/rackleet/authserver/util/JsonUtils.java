@@ -5,6 +5,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.List;
+import java.util.Map;
 
 
 public class JsonUtils {
@@ -19,6 +20,14 @@ public class JsonUtils {
         }
     }
 
+    public static String toJson(Map<String, Object> object) {
+        try {
+            return mapper.writeValueAsString(object);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize object to JSON", e);
+        }
+    }
+
     public static List<String> fromJson(String json) {
         if (json == null || json.isBlank()) {
             return List.of();
@@ -0,0 +1,13 @@
+-- V10__add_refresh_token_revocation_indexes.sql
+
+-- Bulk revocation ("all tokens for this user", "for this client",
+-- "for this user and client") runs as one UPDATE per selector.
+-- Partial indexes cover only live tokens - the rows those UPDATEs
+-- actually touch - so they stay small as revoked tokens pile up.
+
+-- user_id first: serves both user-only and user + client revocation
+CREATE INDEX idx_refresh_tokens_user_client_active
+    ON refresh_tokens (user_id, client_id) WHERE is_revoked = false;
+
+CREATE INDEX idx_refresh_tokens_client_active
+    ON refresh_tokens (client_id) WHERE is_revoked = false;
@@ -0,0 +1,67 @@
+-- V11__create_refresh_token_families_table.sql
+
+-- Replaces refresh_tokens. That table kept every rotated-out token as a
+-- revoked row so reuse detection could find its family, which grew
+-- without bound for long-lived sessions. A family is now one row that
+-- rotation rewrites in place.
+CREATE TABLE refresh_token_families (
+    id                  BIGSERIAL     PRIMARY KEY,
+
+    -- SHA-256 hash of the family's current token - the only one usable
+    token_hash          VARCHAR(64)   NOT NULL,
+
+    -- Hash of the token the current one replaced. Presented again, it
+    -- means the token was copied: the whole family is revoked.
+    previous_token_hash VARCHAR(64),
+
+    client_id           VARCHAR(36)   NOT NULL,
+    user_id             BIGINT        NOT NULL,
+
+    -- Narrowed on refresh if the client asks, never expanded
+    scope               TEXT,
+
+    -- Expiry of the current token; rotation moves it forward
+    expires_at          TIMESTAMP     NOT NULL,
+
+    -- Revoking a family is a write to this one flag
+    is_revoked          BOOLEAN       NOT NULL DEFAULT FALSE,
+    created_at          TIMESTAMP     NOT NULL DEFAULT NOW()
+);
+
+-- Primary lookup: hash the incoming token, find its family
+CREATE UNIQUE INDEX idx_refresh_token_families_token_hash
+    ON refresh_token_families (token_hash);
+
+-- Reuse detection: which family did this rotated-out token belong to
+CREATE INDEX idx_refresh_token_families_previous
+    ON refresh_token_families (previous_token_hash);
+
+-- For cleanup: find expired families
+CREATE INDEX idx_refresh_token_families_expires_at
+    ON refresh_token_families (expires_at);
+
+-- Bulk revocation by user and/or client; only live families (see V10)
+CREATE INDEX idx_refresh_token_families_user_client_active
+    ON refresh_token_families (user_id, client_id) WHERE is_revoked = false;
+
+CREATE INDEX idx_refresh_token_families_client_active
+    ON refresh_token_families (client_id) WHERE is_revoked = false;
+
+-- Carry live sessions over: each family's unrevoked token becomes its
+-- current token, and the newest revoked token in the family its previous
+INSERT INTO refresh_token_families
+    (token_hash, previous_token_hash, client_id, user_id, scope, expires_at, created_at)
+SELECT t.token_hash,
+       (SELECT p.token_hash
+          FROM refresh_tokens p
+         WHERE p.is_revoked = true
+           AND COALESCE(p.parent_token_hash, p.token_hash)
+               = COALESCE(t.parent_token_hash, t.token_hash)
+         ORDER BY p.created_at DESC, p.id DESC
+         LIMIT 1),
+       t.client_id, t.user_id, t.scope, t.expires_at, t.created_at
+  FROM refresh_tokens t
+ WHERE t.is_revoked = false
+   AND t.expires_at > NOW();
+
+DROP TABLE refresh_tokens;
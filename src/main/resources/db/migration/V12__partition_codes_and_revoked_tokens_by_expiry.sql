@@ -0,0 +1,108 @@
+-- V12__partition_codes_and_revoked_tokens_by_expiry.sql
+
+-- Both tables are insert-once, their expires_at never changes, and every
+-- row is dead soon after it passes. Partitioned by day of expiry, cleanup
+-- is dropping yesterday's partition - no row-by-row DELETE, no vacuum or
+-- index bloat. PartitionMaintainer creates upcoming partitions and drops
+-- expired ones at runtime; this migration seeds the first window.
+--
+-- refresh_token_families is left alone: rotation moves its expires_at,
+-- which would turn every rotation into a cross-partition row move.
+
+-- The partition key has to be part of every unique index, so the primary
+-- keys become (id, expires_at) and revoked_tokens' jti uniqueness becomes
+-- (jti, expires_at). A jti always comes with the same exp, so that still
+-- stops duplicates.
+
+-- ── authorization_codes ─────────────────────────────────────
+
+ALTER TABLE authorization_codes RENAME TO authorization_codes_unpartitioned;
+
+CREATE TABLE authorization_codes (
+    id                    BIGINT        NOT NULL DEFAULT nextval('authorization_codes_id_seq'),
+    code_hash             VARCHAR(64)   NOT NULL,
+    client_id             VARCHAR(36)   NOT NULL,
+    user_id               BIGINT        NOT NULL,
+    redirect_uri          TEXT          NOT NULL,
+    scope                 TEXT,
+    code_challenge        VARCHAR(128),
+    code_challenge_method VARCHAR(10),
+    expires_at            TIMESTAMP     NOT NULL,
+    is_used               BOOLEAN       NOT NULL DEFAULT FALSE,
+    created_at            TIMESTAMP     NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, expires_at)
+) PARTITION BY RANGE (expires_at);
+
+ALTER SEQUENCE authorization_codes_id_seq OWNED BY authorization_codes.id;
+
+-- ── revoked_tokens ──────────────────────────────────────────
+
+ALTER TABLE revoked_tokens RENAME TO revoked_tokens_unpartitioned;
+
+CREATE TABLE revoked_tokens (
+    id          BIGINT        NOT NULL DEFAULT nextval('revoked_tokens_id_seq'),
+    jti         VARCHAR(36)   NOT NULL,
+    expires_at  TIMESTAMP     NOT NULL,
+    revoked_at  TIMESTAMP     NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, expires_at)
+) PARTITION BY RANGE (expires_at);
+
+ALTER SEQUENCE revoked_tokens_id_seq OWNED BY revoked_tokens.id;
+
+-- ── Initial partitions ──────────────────────────────────────
+
+-- One per day from yesterday to a week out, stretched to cover any live
+-- row being carried over. Named <table>_pYYYYMMDD, which is what
+-- PartitionMaintainer looks for.
+DO $$
+DECLARE
+    parent TEXT;
+    first_day DATE := CURRENT_DATE - 1;
+    last_day DATE;
+    day DATE;
+BEGIN
+    FOREACH parent IN ARRAY ARRAY['authorization_codes', 'revoked_tokens'] LOOP
+        EXECUTE format('SELECT GREATEST(CURRENT_DATE + 7, MAX(expires_at)::date) FROM %I '
+                       || 'WHERE expires_at > NOW() - INTERVAL ''1 hour''',
+                       parent || '_unpartitioned')
+            INTO last_day;
+        last_day := COALESCE(last_day, CURRENT_DATE + 7);
+
+        day := first_day;
+        WHILE day <= last_day LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           parent || '_p' || to_char(day, 'YYYYMMDD'), parent, day, day + 1);
+            day := day + 1;
+        END LOOP;
+    END LOOP;
+END $$;
+
+-- ── Carry over live rows ────────────────────────────────────
+
+-- Anything that expired before yesterday has no partition and is dropped
+-- here instead of being purged later
+INSERT INTO authorization_codes
+SELECT id, code_hash, client_id, user_id, redirect_uri, scope,
+       code_challenge, code_challenge_method, expires_at, is_used, created_at
+  FROM authorization_codes_unpartitioned
+ WHERE expires_at >= CURRENT_DATE - 1;
+
+INSERT INTO revoked_tokens
+SELECT id, jti, expires_at, revoked_at
+  FROM revoked_tokens_unpartitioned
+ WHERE expires_at >= CURRENT_DATE - 1;
+
+DROP TABLE authorization_codes_unpartitioned;
+DROP TABLE revoked_tokens_unpartitioned;
+
+-- ── Indexes ─────────────────────────────────────────────────
+
+-- Created on the parent, so every partition - including ones made
+-- later - gets its own. No expires_at index: partition pruning does
+-- that job now.
+
+-- We look up codes by hash on every token exchange request
+CREATE INDEX idx_authorization_codes_code_hash ON authorization_codes (code_hash);
+
+-- Every revocation inserts ON CONFLICT against this
+CREATE UNIQUE INDEX idx_revoked_tokens_jti ON revoked_tokens (jti, expires_at);
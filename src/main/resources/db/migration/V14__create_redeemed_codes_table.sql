@@ -0,0 +1,30 @@
+-- V14__create_redeemed_codes_table.sql
+
+-- Single-use guard for encrypted authorization codes
+-- (authserver.authorization-codes.format = encrypted). Such a code carries
+-- its whole grant, so issuing it writes nothing; redeeming it inserts its
+-- id here, and a second insert of the same id is a replay.
+--
+-- Insert-once with a fixed expiry, like authorization_codes, so it is
+-- partitioned the same way (see V12) and PartitionMaintainer drops each
+-- day once it is past retention. A code's expiry never changes, so
+-- (code_id, expires_at) is as unique as code_id alone.
+CREATE TABLE redeemed_codes (
+    -- The code's random 96-bit GCM nonce
+    code_id     BYTEA       NOT NULL,
+    expires_at  TIMESTAMP   NOT NULL,
+    PRIMARY KEY (code_id, expires_at),
+    CONSTRAINT chk_redeemed_codes_code_id_length CHECK (octet_length(code_id) = 12)
+) PARTITION BY RANGE (expires_at);
+
+-- Yesterday to a week out; PartitionMaintainer extends the window
+DO $$
+DECLARE
+    day DATE := CURRENT_DATE - 1;
+BEGIN
+    WHILE day <= CURRENT_DATE + 7 LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF redeemed_codes FOR VALUES FROM (%L) TO (%L)',
+                       'redeemed_codes_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+        day := day + 1;
+    END LOOP;
+END $$;
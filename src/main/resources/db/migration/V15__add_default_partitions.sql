@@ -0,0 +1,11 @@
+-- V15__add_default_partitions.sql
+
+-- A catch-all partition for each expiry-partitioned table, so a row whose
+-- day has no partition - PartitionMaintainer fell behind, or a day was
+-- already dropped - is still stored instead of failing the insert (and
+-- with it the token request). PartitionMaintainer moves such rows into
+-- their day's partition when it creates one, and deletes the ones that
+-- expire in here.
+CREATE TABLE authorization_codes_default PARTITION OF authorization_codes DEFAULT;
+CREATE TABLE revoked_tokens_default PARTITION OF revoked_tokens DEFAULT;
+CREATE TABLE redeemed_codes_default PARTITION OF redeemed_codes DEFAULT;
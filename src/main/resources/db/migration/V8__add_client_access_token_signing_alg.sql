@@ -0,0 +1,8 @@
+-- V8__add_client_access_token_signing_alg.sql
+
+-- Per-client JWS algorithm for access tokens.
+-- RS256 stays the default so existing clients are unaffected.
+-- ES256 (P-256) and EdDSA (Ed25519) are much cheaper to sign and
+-- produce shorter tokens - a good fit for internal clients.
+ALTER TABLE oauth_clients
+    ADD COLUMN access_token_signing_alg VARCHAR(10) NOT NULL DEFAULT 'RS256';
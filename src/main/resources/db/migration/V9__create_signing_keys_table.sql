@@ -0,0 +1,18 @@
+-- V9__create_signing_keys_table.sql
+
+-- Signing keys for the database key store (authserver.keys.store=database).
+--
+-- Every node loads the same key set from here, so a token signed on one
+-- node verifies on all of them and keeps verifying after restarts.
+-- Each row holds the full JWK, private key included, encrypted with
+-- authserver.keys.passphrase as a compact JWE - never plaintext.
+
+CREATE TABLE signing_keys (
+    id              BIGSERIAL     PRIMARY KEY,
+    kid             VARCHAR(64)   NOT NULL,
+    algorithm       VARCHAR(10)   NOT NULL,
+    encrypted_jwk   TEXT          NOT NULL,
+    created_at      TIMESTAMP     NOT NULL DEFAULT NOW()
+);
+
+CREATE UNIQUE INDEX idx_signing_keys_kid ON signing_keys (kid);
@@ -0,0 +1,133 @@
+package com.rackleet.authserver.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import com.rackleet.authserver.config.AuthServerProperties;
+import com.rackleet.authserver.entity.AuthorizationCode;
+
+class AuthorizationCodeCodecTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String OTHER_KEY = Base64.getEncoder().encodeToString("k".repeat(32).getBytes());
+
+    private final AuthorizationCodeCodec codec = codec("encrypted", KEY);
+
+    @Test
+    void roundTripsTheGrant() {
+        AuthorizationCode grant = grant();
+        String code = codec.seal(grant);
+
+        assertThat(code).startsWith("ac_");
+        assertThat(codec.isSealed(code)).isTrue();
+
+        AuthorizationCodeCodec.Opened opened = codec.open(code);
+        assertThat(opened).isNotNull();
+        assertThat(opened.codeId()).hasSize(12);
+        assertThat(opened.grant())
+                .usingRecursiveComparison()
+                .comparingOnlyFields("userId", "clientId", "redirectUri", "scope",
+                        "codeChallenge", "codeChallengeMethod", "expiresAt")
+                .isEqualTo(grant);
+    }
+
+    @Test
+    void keepsNullFieldsAndLongRedirectUris() {
+        AuthorizationCode grant = grant();
+        grant.setScope(null);
+        grant.setCodeChallenge(null);
+        grant.setCodeChallengeMethod(null);
+        grant.setRedirectUri("https://client.example/cb?state=" + "x".repeat(70_000));
+
+        AuthorizationCode opened = codec.open(codec.seal(grant)).grant();
+
+        assertThat(opened.getScope()).isNull();
+        assertThat(opened.getCodeChallenge()).isNull();
+        assertThat(opened.getRedirectUri()).isEqualTo(grant.getRedirectUri());
+    }
+
+    @Test
+    void everyCodeHasItsOwnId() {
+        AuthorizationCode grant = grant();
+
+        assertThat(codec.open(codec.seal(grant)).codeId()).isNotEqualTo(codec.open(codec.seal(grant)).codeId());
+    }
+
+    @Test
+    void rejectsATamperedCode() {
+        String code = codec.seal(grant());
+
+        // The nonce, the ciphertext and the tag in turn
+        for (int index : new int[] {5, 40, code.length() - 5}) {
+            char flipped = code.charAt(index) == 'A' ? 'B' : 'A';
+            String tampered = code.substring(0, index) + flipped + code.substring(index + 1);
+            assertThat(codec.open(tampered)).as("tampered at %d", index).isNull();
+        }
+    }
+
+    @Test
+    void rejectsAWrongPrefix() {
+        String code = codec.seal(grant());
+
+        assertThat(codec.isSealed("rt_" + code.substring(3))).isFalse();
+        assertThat(codec.isSealed(HashUtils.generateRandomToken())).isFalse();
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        String code = codec.seal(grant());
+
+        assertThat(codec.open(code.substring(0, code.length() - 1))).isNull();
+        assertThat(codec.open(code.substring(0, 30))).isNull();
+        assertThat(codec.open("ac_")).isNull();
+        assertThat(codec.open("ac_!!!")).isNull();
+    }
+
+    @Test
+    void rejectsACodeFromAnotherKey() {
+        String code = codec("encrypted", OTHER_KEY).seal(grant());
+
+        assertThat(codec.open(code)).isNull();
+    }
+
+    @Test
+    void encryptedFormatRequiresAKey() {
+        assertThatThrownBy(() -> codec("encrypted", ""))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("encryption-key is required");
+        assertThatThrownBy(() -> codec("encrypted", Base64.getEncoder().encodeToString(new byte[16])))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void withoutAKeyNoCodeOpens() {
+        AuthorizationCodeCodec keyless = codec("database", "");
+
+        assertThat(keyless.open(codec.seal(grant()))).isNull();
+        assertThatThrownBy(() -> keyless.seal(grant())).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static AuthorizationCode grant() {
+        AuthorizationCode grant = new AuthorizationCode();
+        grant.setUserId(7L);
+        grant.setClientId("client-1");
+        grant.setRedirectUri("http://localhost/cb");
+        grant.setScope("openid profile");
+        grant.setCodeChallenge("E9Melhoa2OwvFrEMTJguCHaoeK1t8URWbuGJSstw-cM");
+        grant.setCodeChallengeMethod("S256");
+        grant.setExpiresAt(Instant.ofEpochSecond(Instant.now().getEpochSecond() + 300));
+        return grant;
+    }
+
+    private static AuthorizationCodeCodec codec(String format, String encryptionKey) {
+        AuthServerProperties properties = new AuthServerProperties();
+        properties.getAuthorizationCodes().setFormat(format);
+        properties.getAuthorizationCodes().setEncryptionKey(encryptionKey);
+        return new AuthorizationCodeCodec(properties);
+    }
+}
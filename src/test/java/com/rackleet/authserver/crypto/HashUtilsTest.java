@@ -0,0 +1,98 @@
+package com.rackleet.authserver.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The hand-rolled encoders and the scratch-buffer digest have to agree
+ * byte for byte with the JDK's, at every length and past the buffer size.
+ */
+class HashUtilsTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void toHexMatchesHexFormat() {
+        for (int length = 0; length <= 1100; length += length < 70 ? 1 : 97) {
+            byte[] bytes = randomBytes(length);
+            assertThat(HashUtils.toHex(bytes)).isEqualTo(HexFormat.of().formatHex(bytes));
+        }
+    }
+
+    @Test
+    void base64UrlMatchesUnpaddedUrlEncoder() {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        for (int length = 0; length <= 1700; length += length < 70 ? 1 : 97) {
+            byte[] bytes = randomBytes(length);
+            assertThat(HashUtils.base64Url(bytes)).isEqualTo(encoder.encodeToString(bytes));
+        }
+    }
+
+    @Test
+    void sha256MatchesMessageDigest() throws Exception {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        String ascii = "x".repeat(5000);
+        for (String input : new String[] {"", "abc", ascii.substring(0, 2048), ascii, "naïve ☃ token"}) {
+            byte[] expected = sha256.digest(input.getBytes(StandardCharsets.UTF_8));
+            assertThat(HashUtils.sha256(input)).isEqualTo(expected);
+            assertThat(HashUtils.sha256(input.getBytes(StandardCharsets.UTF_8))).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void s256ChallengeMatchesRfc7636Example() {
+        // RFC 7636 appendix B
+        assertThat(HashUtils.s256Challenge("dBjftJeZ4CVP-mB92K27uhbUJU1p1r_wW1gFWFOEjXk"))
+                .isEqualTo("E9Melhoa2OwvFrEMTJguCHaoeK1t8URWbuGJSstw-cM");
+    }
+
+    @Test
+    void randomTokensAreUnpaddedBase64UrlOf32Bytes() {
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            String token = HashUtils.generateRandomToken();
+            assertThat(token).hasSize(43).matches("[A-Za-z0-9_-]+");
+            assertThat(Base64.getUrlDecoder().decode(token)).hasSize(32);
+            assertThat(seen.add(token)).isTrue();
+        }
+    }
+
+    @Test
+    void randomBytesSpanThePoolRefill() {
+        // 1 KiB pool: these draws cross a refill, and an oversized one skips it
+        Set<String> seen = new HashSet<>();
+        for (int length : new int[] {16, 1000, 32, 1024, 4096}) {
+            byte[] bytes = HashUtils.randomBytes(length);
+            assertThat(bytes).hasSize(length);
+            assertThat(seen.add(HexFormat.of().formatHex(bytes))).isTrue();
+        }
+    }
+
+    @Test
+    void randomUuidsAreVersion4() {
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = HashUtils.randomUuid();
+            assertThat(uuid.version()).isEqualTo(4);
+            assertThat(uuid.variant()).isEqualTo(2);
+            assertThat(UUID.fromString(uuid.toString())).isEqualTo(uuid);
+            assertThat(seen.add(uuid)).isTrue();
+        }
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,115 @@
+package com.rackleet.authserver.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import com.rackleet.authserver.config.AuthServerProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RefreshTokenCodecTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String OTHER_KEY = Base64.getEncoder().encodeToString("k".repeat(32).getBytes());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RefreshTokenCodec codec = codec(KEY, null);
+
+    @Test
+    void roundTripsFamilyIdAndSecret() {
+        byte[] secret = codec.newSecret();
+        String token = codec.encode(1234567L, secret);
+
+        assertThat(token).startsWith("rt_").hasSize(78);
+        assertThat(codec.isRefreshToken(token)).isTrue();
+
+        RefreshTokenCodec.Parsed parsed = codec.parse(token);
+        assertThat(parsed).isNotNull();
+        assertThat(parsed.familyId()).isEqualTo(1234567L);
+        assertThat(parsed.tokenHash()).isEqualTo(HashUtils.sha256(secret));
+    }
+
+    @Test
+    void rejectsATamperedToken() {
+        String token = codec.encode(42L, codec.newSecret());
+
+        // One character in the id, the secret and the tag in turn
+        for (int index : new int[] {5, 30, 70}) {
+            char flipped = token.charAt(index) == 'A' ? 'B' : 'A';
+            String tampered = token.substring(0, index) + flipped + token.substring(index + 1);
+            assertThat(codec.parse(tampered)).as("tampered at %d", index).isNull();
+        }
+        assertThat(meterRegistry.counter("refresh_tokens_rejected").count()).isEqualTo(3);
+    }
+
+    @Test
+    void rejectsAWrongPrefix() {
+        String token = codec.encode(42L, codec.newSecret());
+
+        assertThat(codec.parse("xx_" + token.substring(3))).isNull();
+        assertThat(codec.isRefreshToken("at_" + token.substring(3))).isFalse();
+    }
+
+    @Test
+    void rejectsTruncatedAndPaddedInput() {
+        String token = codec.encode(42L, codec.newSecret());
+
+        assertThat(codec.parse(token.substring(0, token.length() - 1))).isNull();
+        assertThat(codec.parse(token.substring(0, 40))).isNull();
+        assertThat(codec.parse("rt_")).isNull();
+        assertThat(codec.parse(token + "A")).isNull();
+        assertThat(codec.parse("rt_" + "!".repeat(75))).isNull();
+    }
+
+    @Test
+    void rejectsATokenFromAnotherKey() {
+        String token = codec(OTHER_KEY, null).encode(42L, codec.newSecret());
+
+        assertThat(codec.parse(token)).isNull();
+    }
+
+    @Test
+    void acceptsLegacyTokensUntilTheCutoff() {
+        String legacy = HashUtils.generateRandomToken();
+        RefreshTokenCodec beforeCutoff = codec(KEY, Instant.now().plus(1, ChronoUnit.DAYS));
+
+        RefreshTokenCodec.Parsed parsed = beforeCutoff.parse(legacy);
+        assertThat(parsed).isNotNull();
+        assertThat(parsed.familyId()).isNull();
+        assertThat(parsed.tokenHash()).isEqualTo(HashUtils.sha256(legacy));
+        assertThat(meterRegistry.counter("refresh_tokens_legacy").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("refresh_tokens_rejected").count()).isZero();
+
+        assertThat(codec(KEY, Instant.now().minus(1, ChronoUnit.SECONDS)).parse(legacy)).isNull();
+        assertThat(meterRegistry.counter("refresh_tokens_rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsLegacyTokensWithoutACutoff() {
+        assertThat(codec.parse(HashUtils.generateRandomToken())).isNull();
+        assertThat(meterRegistry.counter("refresh_tokens_legacy").count()).isZero();
+    }
+
+    @Test
+    void requiresAKeyOfAtLeast32Bytes() {
+        assertThatThrownBy(() -> codec("", null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("mac-key is required");
+        assertThatThrownBy(() -> codec(Base64.getEncoder().encodeToString(new byte[16]), null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("at least 32 bytes");
+    }
+
+    private RefreshTokenCodec codec(String macKey, Instant acceptLegacyUntil) {
+        AuthServerProperties properties = new AuthServerProperties();
+        properties.getRefreshTokens().setMacKey(macKey);
+        properties.getRefreshTokens().setAcceptLegacyUntil(acceptLegacyUntil);
+        return new RefreshTokenCodec(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,62 @@
+package com.rackleet.authserver.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.rackleet.authserver.crypto.AuthorizationCodeCodec;
+import com.rackleet.authserver.crypto.HashUtils;
+import com.rackleet.authserver.entity.AuthorizationCode;
+import com.rackleet.authserver.exception.OAuthError;
+import com.rackleet.authserver.exception.OAuthException;
+
+/**
+ * An authorization code is redeemed by one conditional write - the
+ * UPDATE on authorization_codes, or the insert into redeemed_codes for an
+ * encrypted code - so of many simultaneous exchanges exactly one gets
+ * tokens.
+ */
+class AuthorizationCodeRedemptionConcurrencyTest extends TokenRaceTestSupport {
+
+    @Autowired
+    private AuthorizationCodeCodec authorizationCodeCodec;
+
+    @Test
+    void storedCodeIsRedeemedExactlyOnce() throws Exception {
+        assertRedeemedOnce(issueAuthorizationCode());
+    }
+
+    @Test
+    void encryptedCodeIsRedeemedExactlyOnce() throws Exception {
+        AuthorizationCode grant = new AuthorizationCode();
+        grant.setClientId(client.getClientId());
+        grant.setUserId(userId);
+        grant.setRedirectUri(REDIRECT_URI);
+        grant.setScope("openid profile");
+        grant.setCodeChallenge(HashUtils.s256Challenge(VERIFIER));
+        grant.setCodeChallengeMethod("S256");
+        grant.setExpiresAt(Instant.now().plus(5, ChronoUnit.MINUTES));
+
+        assertRedeemedOnce(authorizationCodeCodec.seal(grant));
+    }
+
+    private void assertRedeemedOnce(String code) throws Exception {
+        List<Object> outcomes = race(() -> tokenService.exchangeAuthorizationCode(codeExchange(code), client));
+
+        List<Object> winners = outcomes.stream().filter(Map.class::isInstance).toList();
+        assertThat(winners).hasSize(1);
+        assertThat(outcomes).filteredOn(OAuthException.class::isInstance)
+                .hasSize(THREADS - 1)
+                .allSatisfy(e -> assertThat(((OAuthException) e).getError()).isEqualTo(OAuthError.INVALID_GRANT));
+
+        // A replayed code revokes what the first redemption issued
+        String refreshToken = (String) ((Map<?, ?>) winners.get(0)).get("refresh_token");
+        assertThat(tokenService.introspectToken(refreshToken, "refresh_token")).containsEntry("active", false);
+    }
+}
@@ -0,0 +1,65 @@
+package com.rackleet.authserver.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.rackleet.authserver.dto.request.TokenRequest;
+import com.rackleet.authserver.exception.OAuthError;
+import com.rackleet.authserver.exception.OAuthException;
+
+/**
+ * Refresh token rotation is one compare-and-set UPDATE: however many
+ * requests present the same token at once, exactly one rotates it, and
+ * any later use of a rotated-out token revokes the whole family.
+ */
+class RefreshTokenRotationConcurrencyTest extends TokenRaceTestSupport {
+
+    @Test
+    void concurrentRefreshesOfOneTokenHaveExactlyOneWinner() throws Exception {
+        String refreshToken = issueRefreshToken();
+
+        List<Object> outcomes = race(() -> tokenService.refreshAccessToken(refresh(refreshToken), client));
+
+        List<Object> winners = outcomes.stream().filter(Map.class::isInstance).toList();
+        assertThat(winners).hasSize(1);
+        assertThat(outcomes).filteredOn(OAuthException.class::isInstance)
+                .hasSize(THREADS - 1)
+                .allSatisfy(e -> assertThat(((OAuthException) e).getError()).isEqualTo(OAuthError.INVALID_GRANT));
+
+        // The losers presented a rotated-out token, which revokes the
+        // family - the winner's new token included
+        String rotated = (String) ((Map<?, ?>) winners.get(0)).get("refresh_token");
+        assertThat(tokenService.introspectToken(rotated, "refresh_token")).containsEntry("active", false);
+    }
+
+    @Test
+    void replayingARotatedTokenRevokesTheFamily() {
+        String first = issueRefreshToken();
+        String second = (String) tokenService.refreshAccessToken(refresh(first), client).get("refresh_token");
+        assertThat(tokenService.introspectToken(second, "refresh_token")).containsEntry("active", true);
+
+        assertThatThrownBy(() -> tokenService.refreshAccessToken(refresh(first), client))
+                .isInstanceOf(OAuthException.class);
+
+        assertThat(tokenService.introspectToken(second, "refresh_token")).containsEntry("active", false);
+        assertThatThrownBy(() -> tokenService.refreshAccessToken(refresh(second), client))
+                .isInstanceOf(OAuthException.class);
+    }
+
+    private String issueRefreshToken() {
+        String code = issueAuthorizationCode();
+        return (String) tokenService.exchangeAuthorizationCode(codeExchange(code), client).get("refresh_token");
+    }
+
+    private static TokenRequest refresh(String refreshToken) {
+        TokenRequest request = new TokenRequest();
+        request.setGrantType("refresh_token");
+        request.setRefreshToken(refreshToken);
+        return request;
+    }
+}
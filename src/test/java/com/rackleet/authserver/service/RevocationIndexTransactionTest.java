@@ -0,0 +1,70 @@
+package com.rackleet.authserver.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rackleet.authserver.crypto.HashUtils;
+
+/**
+ * The in-memory RevocationIndex only learns about a revocation once its
+ * transaction commits, so a rollback can't leave a token looking revoked
+ * on this node while every other node still accepts it.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RevocationIndexTransactionTest {
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    @Autowired
+    private RevocationIndex revocationIndex;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rolledBackRevocationNeverReachesTheIndex() {
+        String jti = HashUtils.randomUuid().toString();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertThat(tokenRevocationService.revokeAccessTokens(Map.of(jti, expiry()))).isEqualTo(1);
+            assertThat(revocationIndex.isRevoked(jti)).isFalse();
+            status.setRollbackOnly();
+        });
+
+        assertThat(revocationIndex.isRevoked(jti)).isFalse();
+    }
+
+    @Test
+    void committedRevocationReachesTheIndex() {
+        String jti = HashUtils.randomUuid().toString();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            tokenRevocationService.revokeAccessTokens(Map.of(jti, expiry()));
+            assertThat(revocationIndex.isRevoked(jti)).isFalse();
+        });
+
+        assertThat(revocationIndex.isRevoked(jti)).isTrue();
+    }
+
+    @Test
+    void standaloneRevocationIsIndexedOnReturn() {
+        String jti = HashUtils.randomUuid().toString();
+
+        tokenRevocationService.revokeAccessTokens(Map.of(jti, expiry()));
+
+        assertThat(revocationIndex.isRevoked(jti)).isTrue();
+    }
+
+    private static Instant expiry() {
+        return Instant.now().plusSeconds(600);
+    }
+}
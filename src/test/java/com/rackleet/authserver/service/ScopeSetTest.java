@@ -0,0 +1,85 @@
+package com.rackleet.authserver.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ScopeSetTest {
+
+    @Test
+    void unionHoldsEveryScopeOfBoth() {
+        ScopeSet a = of(0, 3);
+        ScopeSet b = of(3, 63);
+
+        assertThat(a.union(b)).isEqualTo(of(0, 3, 63));
+        assertThat(a.union(ScopeSet.EMPTY)).isSameAs(a);
+        assertThat(ScopeSet.EMPTY.union(b)).isEqualTo(b);
+    }
+
+    @Test
+    void minusRemovesTheOtherSetsScopes() {
+        assertThat(of(0, 3, 63).minus(of(3))).isEqualTo(of(0, 63));
+        assertThat(of(0, 3).minus(of(0, 3))).isEqualTo(ScopeSet.EMPTY);
+        assertThat(of(1).minus(ScopeSet.EMPTY)).isEqualTo(of(1));
+    }
+
+    @Test
+    void containsAllIsASubsetCheck() {
+        ScopeSet granted = of(0, 3, 63);
+
+        assertThat(granted.containsAll(of(0, 63))).isTrue();
+        assertThat(granted.containsAll(granted)).isTrue();
+        assertThat(granted.containsAll(ScopeSet.EMPTY)).isTrue();
+        assertThat(granted.containsAll(of(0, 4))).isFalse();
+        assertThat(ScopeSet.EMPTY.containsAll(of(0))).isFalse();
+    }
+
+    @Test
+    void idsPastTheFirstLongUseOverflowWords() {
+        ScopeSet high = of(1, 64, 200);
+
+        assertThat(high.size()).isEqualTo(3);
+        assertThat(high.contains(64)).isTrue();
+        assertThat(high.contains(200)).isTrue();
+        assertThat(high.contains(128)).isFalse();
+        assertThat(ids(high)).containsExactly(1, 64, 200);
+
+        assertThat(high.union(of(2, 130))).isEqualTo(of(1, 2, 64, 130, 200));
+        assertThat(of(2, 130).union(high)).isEqualTo(of(1, 2, 64, 130, 200));
+        assertThat(high.minus(of(200))).isEqualTo(of(1, 64));
+        // Removing every overflow id leaves a set equal to a plain one
+        assertThat(high.minus(of(64, 200))).isEqualTo(new ScopeSet(1L << 1));
+        assertThat(high.minus(of(64, 200)).hashCode()).isEqualTo(new ScopeSet(1L << 1).hashCode());
+
+        assertThat(high.containsAll(of(1, 200))).isTrue();
+        assertThat(high.containsAll(of(1, 201))).isFalse();
+        assertThat(of(1).containsAll(of(1, 64))).isFalse();
+        assertThat(high.containsAll(of(1))).isTrue();
+    }
+
+    @Test
+    void nextIdWalksIdsInOrder() {
+        assertThat(ids(of(0, 5, 63, 64, 127, 128))).containsExactly(0, 5, 63, 64, 127, 128);
+        assertThat(ids(ScopeSet.EMPTY)).isEmpty();
+        assertThat(of(5).nextId(6)).isEqualTo(-1);
+    }
+
+    private static ScopeSet of(int... ids) {
+        ScopeSet.Builder builder = new ScopeSet.Builder();
+        for (int id : ids) {
+            builder.add(id);
+        }
+        return builder.build();
+    }
+
+    private static List<Integer> ids(ScopeSet scopes) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = scopes.nextId(0); id >= 0; id = scopes.nextId(id + 1)) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,117 @@
+package com.rackleet.authserver.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.rackleet.authserver.crypto.HashUtils;
+import com.rackleet.authserver.dto.request.AuthorizationRequest;
+import com.rackleet.authserver.dto.request.ClientRegistrationRequest;
+import com.rackleet.authserver.dto.request.TokenRequest;
+import com.rackleet.authserver.dto.request.UserRegistrationRequest;
+import com.rackleet.authserver.exception.OAuthException;
+
+/**
+ * Shared setup for tests that race many threads through one token
+ * endpoint call: a fresh confidential client and user per test, PKCE
+ * authorization requests for them, and race(), which releases every
+ * thread at once.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+abstract class TokenRaceTestSupport {
+
+    static final int THREADS = 16;
+    static final String REDIRECT_URI = "http://localhost/cb";
+    static final String VERIFIER = "abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnop";
+
+    @Autowired
+    TokenService tokenService;
+    @Autowired
+    AuthorizationService authorizationService;
+    @Autowired
+    private ClientService clientService;
+    @Autowired
+    private ClientRegistry clientRegistry;
+    @Autowired
+    private UserService userService;
+
+    ClientPolicy client;
+    Long userId;
+
+    @BeforeEach
+    void registerClientAndUser() {
+        ClientRegistrationRequest registration = new ClientRegistrationRequest();
+        registration.setClientName("race-test");
+        registration.setClientType("confidential");
+        registration.setRedirectUris(List.of(REDIRECT_URI));
+        registration.setAllowedGrantTypes(List.of("authorization_code", "refresh_token"));
+        registration.setAllowedScopes(List.of("openid", "profile"));
+        client = clientRegistry.findActive(clientService.registerClient(registration).getClientId());
+
+        String username = "race-" + HashUtils.toHex(HashUtils.randomBytes(6));
+        UserRegistrationRequest user = new UserRegistrationRequest();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("Passw0rd!long");
+        userId = userService.registerUser(user).getId();
+    }
+
+    // Issues a stored authorization code for the test client and user,
+    // bound to VERIFIER
+    String issueAuthorizationCode() {
+        AuthorizationRequest authorization = new AuthorizationRequest();
+        authorization.setClientId(client.getClientId());
+        authorization.setRedirectUri(REDIRECT_URI);
+        authorization.setScope("openid profile");
+        authorization.setCodeChallenge(HashUtils.s256Challenge(VERIFIER));
+        authorization.setCodeChallengeMethod("S256");
+        return authorizationService.generateAuthorizationCode(authorization, userId);
+    }
+
+    static TokenRequest codeExchange(String code) {
+        TokenRequest exchange = new TokenRequest();
+        exchange.setGrantType("authorization_code");
+        exchange.setCode(code);
+        exchange.setRedirectUri(REDIRECT_URI);
+        exchange.setCodeVerifier(VERIFIER);
+        return exchange;
+    }
+
+    // Runs the call on every thread at once; each outcome is the result
+    // or the OAuthException it threw
+    static List<Object> race(Callable<Object> call) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        return call.call();
+                    } catch (OAuthException e) {
+                        return e;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Object> outcomes = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                outcomes.add(future.get());
+            }
+            return outcomes;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}